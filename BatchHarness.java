@@ -0,0 +1,100 @@
+/***********************************************
+ * BatchHarness.java
+ * Entry point of the one-JVM-per-student batch
+ * mode. Runs the student's main() once per test
+ * input, each time in a fresh class loader with
+ * its own System.in / System.out.
+ *
+ * Usage: java BatchHarness <studentFolder> <mainClass>
+ *                          <timeoutMillis> <outputLimitBytes>
+ *                          <delimiter>
+ *
+ * stdin : int count, then count inputs
+ *         (int length + UTF-8 bytes each)
+ * stdout: for every input i, in order
+ *           <delimiter> BEGIN i
+ *           ...captured stdout...
+ *           <delimiter> END i <RunStatus> <exitCode>
+ *                     <wallNanos> <cpuNanos> <stdoutBytes> <stderrBytes>
+ *
+ * The delimiter is random per launch, so student
+ * output cannot fake a boundary.
+ ***********************************************/
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchHarness {
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length != 5) {
+            System.err.println("Usage: BatchHarness <studentFolder> <mainClass> "
+                    + "<timeoutMillis> <outputLimitBytes> <delimiter>");
+            System.exit(2);
+        }
+
+        File folder = new File(args[0]);
+        String mainClass = args[1];
+        RunLimits limits = new RunLimits(Long.parseLong(args[2]), Integer.parseInt(args[3]));
+        String delimiter = args[4];
+
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        PrintStream out = new PrintStream(
+                new FileOutputStream(FileDescriptor.out), false, StandardCharsets.UTF_8);
+
+        // read every input up front, so the grader never blocks writing stdin
+        int count = in.readInt();
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            inputs.add(RunnerWorker.readString(in));
+
+        // nothing but the framed output may reach the real stdout
+        System.setOut(System.err);
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+
+        if (!MainInvoker.install()) {
+            System.err.println("[BatchHarness] Cannot trap System.exit, exiting.");
+            System.exit(3);
+        }
+
+        URL[] cp = { folder.toURI().toURL() };
+
+        for (int i = 0; i < count; i++) {
+            RunOutcome outcome;
+            try (URLClassLoader loader = new URLClassLoader(cp, ClassLoader.getPlatformClassLoader())) {
+                outcome = MainInvoker.invoke(loader, mainClass, inputs.get(i), limits);
+            }
+
+            String stdout = outcome.getStdout();
+            out.println(delimiter + " BEGIN " + i);
+            out.print(stdout);
+            if (!stdout.isEmpty() && !stdout.endsWith("\n")) out.println();
+            ResourceUsage usage = outcome.getUsage();
+            out.println(delimiter + " END " + i + " " + outcome.getStatus() + " "
+                    + (outcome.getExitCode() == null ? -1 : outcome.getExitCode()) + " "
+                    + usage.getWallNanos() + " " + usage.getCpuNanos() + " "
+                    + usage.getStdoutBytes() + " " + usage.getStderrBytes());
+            out.flush();
+
+            // a thread left running (endless loop, flooding) would distort every later test
+            if (outcome.getStatus() != RunStatus.COMPLETED) break;
+        }
+
+        out.flush();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,328 @@
+/***********************************************
+ * ClassReportView.java
+ * Class report as a virtualized TreeTableView:
+ * one row per student, expanding to one row per
+ * test case.
+ *
+ * Only visible rows get cells, and a student's
+ * test rows are created the first time the student
+ * is expanded, so the scene graph stays the same
+ * size however large the cohort is.
+ *
+ * Filters: all / failed only / compile errors only.
+ * Every column is sortable. addStudent() may be
+ * called while a run is still going (FX thread);
+ * streamed rows are appended and only re-sorted
+ * when the owner calls applyPendingSort(), so a
+ * large cohort is not re-sorted once per student.
+ ***********************************************/
+
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TreeItem;
+import javafx.scene.control.TreeTableCell;
+import javafx.scene.control.TreeTableColumn;
+import javafx.scene.control.TreeTableRow;
+import javafx.scene.control.TreeTableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+public class ClassReportView {
+
+    public enum Filter {
+        ALL("All results"),
+        FAILED("Failed only"),
+        COMPILE_ERRORS("Compile errors only");
+
+        private final String label;
+
+        Filter(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final List<StudentEntry> students = new ArrayList<>();
+    private final TreeItem<Row> root = new TreeItem<>();
+    private final TreeTableView<Row> table = new TreeTableView<>(root);
+    private final Label summary = new Label();
+    private final VBox node;
+
+    private final BiConsumer<String, Result> onView;
+    private final Function<Result, String> actualText;
+    private Filter filter = Filter.ALL;
+    private boolean sortPending;
+
+    /**
+     * @param onView     opens the details of one result (student name, result)
+     * @param actualText text shown for a result's actual output
+     */
+    public ClassReportView(BiConsumer<String, Result> onView, Function<Result, String> actualText) {
+        this.onView = onView;
+        this.actualText = actualText;
+
+        table.setShowRoot(false);
+        table.setColumnResizePolicy(TreeTableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+
+        TreeTableColumn<Row, String> nameCol = column("Student / Test", r -> r.name);
+        TreeTableColumn<Row, String> statusCol = column("Result", r -> r.status);
+        TreeTableColumn<Row, Integer> passedCol = column("Passed", r -> r.passed);
+        TreeTableColumn<Row, String> expectedCol = column("Expected", r -> r.expected);
+        TreeTableColumn<Row, String> actualCol = column("Actual", r -> r.actual);
+
+        nameCol.setPrefWidth(180);
+        statusCol.setPrefWidth(140);
+        passedCol.setPrefWidth(60);
+
+        // green / red status; cells are recycled, so always reset the style
+        statusCol.setCellFactory(col -> new TreeTableCell<>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                Row row = (empty || getTableRow() == null) ? null : getTableRow().getItem();
+                if (row == null) {
+                    setText(null);
+                    setStyle("");
+                } else {
+                    setText(item);
+                    setStyle(row.ok ? "-fx-text-fill: green;" : "-fx-text-fill: red;");
+                }
+            }
+        });
+
+        table.getColumns().add(nameCol);
+        table.getColumns().add(statusCol);
+        table.getColumns().add(passedCol);
+        table.getColumns().add(expectedCol);
+        table.getColumns().add(actualCol);
+
+        // double-click a row to see its details
+        table.setRowFactory(tv -> {
+            TreeTableRow<Row> row = new TreeTableRow<>();
+            row.setOnMouseClicked(e -> {
+                if (e.getClickCount() == 2 && !row.isEmpty()) openDetails(row.getItem());
+            });
+            return row;
+        });
+
+        ComboBox<Filter> filterBox = new ComboBox<>();
+        filterBox.getItems().addAll(Filter.values());
+        filterBox.setValue(filter);
+        filterBox.setOnAction(e -> setFilter(filterBox.getValue()));
+
+        Button viewBtn = new Button("View");
+        viewBtn.setOnAction(e -> {
+            TreeItem<Row> selected = table.getSelectionModel().getSelectedItem();
+            if (selected != null) openDetails(selected.getValue());
+        });
+
+        HBox toolbar = new HBox(10, new Label("Show:"), filterBox, viewBtn, summary);
+        toolbar.setAlignment(Pos.CENTER_LEFT);
+
+        node = new VBox(8, toolbar, table);
+        node.setPadding(new Insets(5, 0, 5, 0));
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        updateSummary();
+    }
+
+    public VBox getNode() {
+        return node;
+    }
+
+    // ------------ CONTENT --------------
+    public void addStudent(String student, List<Result> results) {
+        StudentEntry entry = new StudentEntry(student, results);
+        students.add(entry);
+        if (matches(entry)) {
+            root.getChildren().add(new StudentItem(entry));
+            sortPending = true;
+        }
+        updateSummary();
+    }
+
+    /** Re-sort once for all students added since the last call (e.g. from a progress ticker). */
+    public void applyPendingSort() {
+        if (!sortPending) return;
+        sortPending = false;
+        if (!table.getSortOrder().isEmpty()) table.sort();
+    }
+
+    /** Replace the whole report; students appear in the order of `results`. */
+    public void setResults(List<Result> results) {
+        Map<String, List<Result>> byStudent = new LinkedHashMap<>();
+        for (Result r : results)
+            byStudent.computeIfAbsent(r.getProgramName(), k -> new ArrayList<>()).add(r);
+
+        students.clear();
+        for (Map.Entry<String, List<Result>> e : byStudent.entrySet())
+            students.add(new StudentEntry(e.getKey(), e.getValue()));
+        refresh();
+    }
+
+    public void setFilter(Filter filter) {
+        this.filter = filter;
+        refresh();
+    }
+
+    private void refresh() {
+        List<TreeItem<Row>> items = new ArrayList<>();
+        for (StudentEntry entry : students)
+            if (matches(entry)) items.add(new StudentItem(entry));
+        root.getChildren().setAll(items);
+        sortPending = false;
+        if (!table.getSortOrder().isEmpty()) table.sort();
+        updateSummary();
+    }
+
+    private void updateSummary() {
+        int failing = 0;
+        int compileErrors = 0;
+        for (StudentEntry s : students) {
+            if (s.compileError != null) compileErrors++;
+            else if (s.passed < s.tests) failing++;
+        }
+        summary.setText(String.format("%d students · %d failing · %d compile errors",
+                students.size(), failing, compileErrors));
+    }
+
+    // ------------ FILTERING --------------
+    private boolean matches(StudentEntry s) {
+        switch (filter) {
+            case FAILED:
+                return s.compileError != null || s.passed < s.tests;
+            case COMPILE_ERRORS:
+                return s.compileError != null;
+            case ALL:
+            default:
+                return true;
+        }
+    }
+
+    private boolean shows(Result r) {
+        switch (filter) {
+            case FAILED:
+                return !r.isPassed();
+            case COMPILE_ERRORS:
+                return r.isCompilationError();
+            case ALL:
+            default:
+                return true;
+        }
+    }
+
+    private void openDetails(Row row) {
+        if (row == null) return;
+        if (row.result != null) onView.accept(row.student, row.result);
+    }
+
+    private static <T> TreeTableColumn<Row, T> column(String title, Function<Row, T> value) {
+        TreeTableColumn<Row, T> col = new TreeTableColumn<>(title);
+        col.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(
+                c.getValue().getValue() == null ? null : value.apply(c.getValue().getValue())));
+        return col;
+    }
+
+    // ------------ MODEL --------------
+    private static class StudentEntry {
+        final String name;
+        final List<Result> results;
+        final Result compileError;
+        final int passed;
+        final int tests;
+
+        StudentEntry(String name, List<Result> results) {
+            this.name = name;
+            this.results = results;
+
+            Result comp = null;
+            int p = 0;
+            for (Result r : results) {
+                if (r.isCompilationError()) comp = r;
+                else if (r.isPassed()) p++;
+            }
+            this.compileError = comp;
+            this.passed = p;
+            this.tests = (comp == null) ? results.size() : 0;
+        }
+    }
+
+    // one table row: a student (summary) or one of their results
+    private static class Row {
+        final String student;
+        final String name;
+        final String status;
+        final Integer passed;
+        final String expected;
+        final String actual;
+        final Result result;   // null for a student row without a compile error
+        final boolean ok;
+
+        Row(String student, String name, String status, Integer passed,
+            String expected, String actual, Result result, boolean ok) {
+            this.student = student;
+            this.name = name;
+            this.status = status;
+            this.passed = passed;
+            this.expected = expected;
+            this.actual = actual;
+            this.result = result;
+            this.ok = ok;
+        }
+    }
+
+    // Student row whose test rows are only built when first needed
+    private class StudentItem extends TreeItem<Row> {
+        private final StudentEntry entry;
+        private boolean loaded;
+
+        StudentItem(StudentEntry s) {
+            super(s.compileError != null
+                    ? new Row(s.name, s.name, "COMPILATION ERROR", null, null, null, s.compileError, false)
+                    : new Row(s.name, s.name, s.passed + "/" + s.tests + " passed", s.passed,
+                              null, null, null, s.passed == s.tests));
+            this.entry = s;
+        }
+
+        @Override
+        public boolean isLeaf() {
+            return entry.compileError != null;
+        }
+
+        @Override
+        public ObservableList<TreeItem<Row>> getChildren() {
+            ObservableList<TreeItem<Row>> children = super.getChildren();
+            if (!loaded && entry != null) {
+                loaded = true;
+                if (entry.compileError == null) {
+                    List<TreeItem<Row>> rows = new ArrayList<>();
+                    for (Result r : entry.results) {
+                        if (!shows(r)) continue;
+                        rows.add(new TreeItem<>(new Row(entry.name, r.getTestCaseTitle(),
+                                r.getStatusLabel(), null, r.getExpected(), actualText.apply(r),
+                                r, r.isPassed())));
+                    }
+                    children.setAll(rows);
+                }
+            }
+            return children;
+        }
+    }
+}
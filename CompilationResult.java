@@ -0,0 +1,84 @@
+/***********************************************
+ * CompilationResult.java
+ * Outcome of compiling one submission:
+ * - structured diagnostics from the compiler
+ * - compiled class files (binary name -> bytes)
+ ***********************************************/
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+public class CompilationResult {
+
+    private boolean success;
+    private List<Diagnostic<? extends JavaFileObject>> diagnostics;
+    private Map<String, byte[]> classFiles;
+    private String cachedError;   // first error line when restored from CompileCache
+
+    public CompilationResult(boolean success,
+                             List<Diagnostic<? extends JavaFileObject>> diagnostics,
+                             Map<String, byte[]> classFiles) {
+        this.success = success;
+        this.diagnostics = diagnostics;
+        this.classFiles = classFiles;
+    }
+
+    // Failed compilation restored from the cache (no Diagnostic objects kept)
+    public static CompilationResult cachedFailure(String firstErrorLine) {
+        CompilationResult r = new CompilationResult(false, new ArrayList<>(), new TreeMap<>());
+        r.cachedError = firstErrorLine;
+        return r;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+        return Collections.unmodifiableList(diagnostics);
+    }
+
+    public List<Diagnostic<? extends JavaFileObject>> getErrors() {
+        List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics)
+            if (d.getKind() == Diagnostic.Kind.ERROR) errors.add(d);
+        return errors;
+    }
+
+    public Map<String, byte[]> getClassFiles() {
+        return Collections.unmodifiableMap(classFiles);
+    }
+
+    /**
+     * First error formatted the way javac prints it, e.g.
+     * "Alice.java:12: error: ';' expected".
+     * Returns null if compilation succeeded.
+     */
+    public String firstErrorLine() {
+        if (success) return null;
+        if (cachedError != null) return cachedError;
+
+        List<Diagnostic<? extends JavaFileObject>> errors = getErrors();
+        if (errors.isEmpty()) return "Compilation failed.";
+
+        Diagnostic<? extends JavaFileObject> d = errors.get(0);
+        String message = d.getMessage(Locale.getDefault());
+        int nl = message.indexOf('\n');
+        if (nl >= 0) message = message.substring(0, nl);
+
+        if (d.getSource() == null)
+            return "error: " + message;
+
+        String file = d.getSource().getName();
+        int slash = Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\'));
+        file = file.substring(slash + 1);
+
+        return file + ":" + d.getLineNumber() + ": error: " + message;
+    }
+}
@@ -0,0 +1,169 @@
+/***********************************************
+ * CompilationService.java
+ * In-process compiler shared by all submissions.
+ * Keeps one warm javax.tools.JavaCompiler and a
+ * pool of reusable file managers instead of
+ * forking "javac" for every student.
+ *
+ * Sources are read into memory and class files
+ * are captured in memory; the caller decides
+ * where (or whether) to write them to disk.
+ ***********************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+public class CompilationService {
+
+    private static final CompilationService SHARED = new CompilationService();
+
+    private final JavaCompiler compiler;
+
+    // StandardJavaFileManager is not thread-safe but is expensive to warm up
+    // (it caches the platform classes), so each compile borrows one from here.
+    private final ConcurrentLinkedQueue<StandardJavaFileManager> idleFileManagers =
+            new ConcurrentLinkedQueue<>();
+
+    public CompilationService() {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+    }
+
+    public static CompilationService shared() {
+        return SHARED;
+    }
+
+    /** False when running on a JRE without javax.tools (caller should fall back to javac). */
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    /**
+     * Compile all .java files in the given folder.
+     * The folder itself is the only class path entry, so submissions
+     * cannot accidentally resolve against the grader's own classes.
+     */
+    public CompilationResult compileFolder(File folder) throws IOException {
+        File[] javaFiles = folder.listFiles((dir, name) -> name.endsWith(".java"));
+        if (javaFiles == null) javaFiles = new File[0];
+        Arrays.sort(javaFiles);
+
+        List<JavaFileObject> sources = new ArrayList<>();
+        for (File f : javaFiles)
+            sources.add(new MemorySource(f, readSource(f)));
+
+        return compile(sources, folder.getAbsolutePath());
+    }
+
+    public CompilationResult compile(List<JavaFileObject> sources, String classPath) {
+        if (compiler == null)
+            throw new IllegalStateException("No system Java compiler available.");
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        if (sources.isEmpty())
+            return new CompilationResult(false, diagnostics.getDiagnostics(), new TreeMap<>());
+
+        StandardJavaFileManager standard = idleFileManagers.poll();
+        if (standard == null)
+            standard = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+
+        MemoryFileManager fm = new MemoryFileManager(standard);
+        try {
+            List<String> options = Arrays.asList(
+                    "-classpath", classPath,
+                    "-proc:none",
+                    "-Xlint:none"
+            );
+            JavaCompiler.CompilationTask task =
+                    compiler.getTask(null, fm, diagnostics, options, null, sources);
+
+            boolean ok = task.call();
+            return new CompilationResult(ok, diagnostics.getDiagnostics(),
+                    ok ? fm.classFiles() : new TreeMap<>());
+        } finally {
+            idleFileManagers.offer(standard);
+        }
+    }
+
+    private static String readSource(File f) throws IOException {
+        byte[] bytes = Files.readAllBytes(f.toPath());
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ------------ IN-MEMORY FILE OBJECTS --------------
+
+    private static class MemorySource extends SimpleJavaFileObject {
+        private final String content;
+
+        MemorySource(File file, String content) {
+            super(file.toURI(), Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+
+    private static class MemoryClass extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        MemoryClass(String binaryName) {
+            super(URI.create("mem:///" + binaryName.replace('.', '/') + Kind.CLASS.extension),
+                    Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    private static class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+        private final Map<String, MemoryClass> outputs = new TreeMap<>();
+
+        MemoryFileManager(JavaFileManager delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) {
+            MemoryClass out = new MemoryClass(className);
+            outputs.put(className, out);
+            return out;
+        }
+
+        @Override
+        public void close() {
+            // the wrapped standard file manager is pooled, never closed here
+        }
+
+        Map<String, byte[]> classFiles() {
+            Map<String, byte[]> result = new TreeMap<>();
+            for (Map.Entry<String, MemoryClass> e : outputs.entrySet())
+                result.put(e.getKey(), e.getValue().bytes.toByteArray());
+            return result;
+        }
+    }
+}
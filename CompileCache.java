@@ -0,0 +1,321 @@
+/***********************************************
+ * CompileCache.java
+ * Content-addressed cache of compiled submissions.
+ *
+ * Key: SHA-256 of the submission's .java files
+ * (sorted by name, name + contents) plus the JDK
+ * version. An unchanged submission therefore maps
+ * to the same entry no matter which folder or
+ * submission round it sits in.
+ *
+ * Layout under the cache directory:
+ *   <key>/classes/<binary/Name>.class   (success)
+ *   <key>/error.txt                     (compile error)
+ *
+ * Entries are written to a temp folder and moved
+ * into place, so parallel workers never see half
+ * an entry.
+ *
+ * - enabled : on by default
+ * - maxBytes: least recently used entries are evicted
+ *             once the cache grows past this size
+ *             (a hit marks an entry as used). An
+ *             evicted entry is renamed away before
+ *             it is deleted, so a concurrent lookup
+ *             either reads all of it or misses.
+ ***********************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class CompileCache {
+
+    private static final CompileCache SHARED = new CompileCache(
+            Paths.get(System.getProperty("user.home"), ".assignment-compiler", "compile-cache"),
+            256L * 1024 * 1024);
+
+    // Bump when the entry layout or compiler options change
+    private static final String FORMAT = "compile-cache-v1";
+
+    // in-flight writes and evicted entries awaiting deletion
+    private static final String TEMP_MARK = ".tmp";
+
+    private volatile Path directory;
+    private volatile long maxBytes;
+    private volatile boolean enabled = true;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // total size of entries on disk; -1 until first scanned
+    private final AtomicLong sizeOnDisk = new AtomicLong(-1);
+
+    public CompileCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    public static CompileCache shared() {
+        return SHARED;
+    }
+
+    // ------------ SETTINGS & COUNTERS --------------
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public synchronized void setDirectory(Path directory) {
+        this.directory = directory;
+        sizeOnDisk.set(-1);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes < 1) throw new IllegalArgumentException("Cache size must be positive.");
+        this.maxBytes = maxBytes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public void resetCounters() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    public String formatStats() {
+        long h = hits.get();
+        long m = misses.get();
+        long total = h + m;
+        return String.format("compile cache: %d hits, %d misses (%.0f%% hit rate)",
+                h, m, total == 0 ? 0.0 : 100.0 * h / total);
+    }
+
+    // ------------ KEY --------------
+    /** Hash of every .java file in the folder (sorted by name) plus the JDK version. */
+    public static String submissionKey(File folder) throws IOException {
+        File[] javaFiles = folder.listFiles((dir, name) -> name.endsWith(".java"));
+        if (javaFiles == null) javaFiles = new File[0];
+        Arrays.sort(javaFiles, Comparator.comparing(File::getName));
+
+        ContentHash h = new ContentHash()
+                .add(FORMAT)
+                .add(System.getProperty("java.vendor"))
+                .add(Runtime.version().toString());
+        for (File f : javaFiles) {
+            h.add(f.getName());
+            h.add(Files.readAllBytes(f.toPath()));
+        }
+        return h.toHex();
+    }
+
+    // ------------ LOOKUP / STORE --------------
+    /** Cached compilation for this key, or null on a miss (or when disabled). */
+    public CompilationResult lookup(String key) {
+        if (!enabled) return null;
+
+        Path entry = directory.resolve(key);
+        try {
+            Path error = entry.resolve("error.txt");
+            if (Files.isRegularFile(error)) {
+                String message = new String(Files.readAllBytes(error), StandardCharsets.UTF_8);
+                touch(entry);
+                hits.incrementAndGet();
+                return CompilationResult.cachedFailure(message);
+            }
+
+            Path classes = entry.resolve("classes");
+            if (Files.isDirectory(classes)) {
+                Map<String, byte[]> classFiles = new TreeMap<>();
+                try (Stream<Path> files = Files.walk(classes)) {
+                    for (Path p : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                        String rel = classes.relativize(p).toString();
+                        String binaryName = rel.substring(0, rel.length() - ".class".length())
+                                .replace(File.separatorChar, '.');
+                        classFiles.put(binaryName, Files.readAllBytes(p));
+                    }
+                }
+                touch(entry);
+                hits.incrementAndGet();
+                return new CompilationResult(true, new ArrayList<>(), classFiles);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // also an entry evicted while it was being read
+            System.out.println("[CompileCache] Ignoring unreadable entry " + key + ": " + e.getMessage());
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void store(String key, CompilationResult result) {
+        if (!enabled) return;
+
+        Path entry = directory.resolve(key);
+        if (Files.exists(entry)) return;
+
+        Path tmp = null;
+        try {
+            Files.createDirectories(directory);
+            tmp = Files.createTempDirectory(directory, key + TEMP_MARK);
+
+            if (result.isSuccess()) {
+                Path classes = tmp.resolve("classes");
+                Files.createDirectories(classes);
+                for (Map.Entry<String, byte[]> e : result.getClassFiles().entrySet()) {
+                    Path out = classes.resolve(e.getKey().replace('.', File.separatorChar) + ".class");
+                    Files.createDirectories(out.getParent());
+                    Files.write(out, e.getValue());
+                }
+            } else {
+                Files.write(tmp.resolve("error.txt"),
+                        result.firstErrorLine().getBytes(StandardCharsets.UTF_8));
+            }
+
+            long size = sizeOf(tmp);
+            try {
+                Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, entry);
+            }
+            tmp = null;
+
+            if (sizeOnDisk.get() < 0) scanSize();
+            if (sizeOnDisk.addAndGet(size) > maxBytes) evict();
+
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // another worker stored the same submission first
+        } catch (IOException e) {
+            System.out.println("[CompileCache] Could not store " + key + ": " + e.getMessage());
+        } finally {
+            if (tmp != null) deleteQuietly(tmp);
+        }
+    }
+
+    /** Delete every entry. */
+    public synchronized void clear() throws IOException {
+        for (Path p : listEntries()) remove(p);
+        sizeOnDisk.set(0);
+    }
+
+    // ------------ EVICTION --------------
+    // Drop least recently used entries until the cache is back under 90% of maxBytes
+    private synchronized void evict() throws IOException {
+        if (sizeOnDisk.get() <= maxBytes) return;
+
+        List<Path> entries = listEntries();
+        entries.sort(Comparator.comparing(CompileCache::lastModified));
+
+        long target = maxBytes / 10 * 9;
+        long[] sizes = new long[entries.size()];
+        long size = 0;
+        for (int i = 0; i < sizes.length; i++) size += sizes[i] = sizeOf(entries.get(i));
+
+        for (int i = 0; i < sizes.length && size > target; i++) {
+            if (remove(entries.get(i))) size -= sizes[i];
+        }
+        sizeOnDisk.set(size);
+    }
+
+    private synchronized void scanSize() throws IOException {
+        if (sizeOnDisk.get() >= 0) return;
+        long size = 0;
+        for (Path p : listEntries()) size += sizeOf(p);
+        sizeOnDisk.set(size);
+    }
+
+    private List<Path> listEntries() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return entries;
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> Files.isDirectory(p) && !p.getFileName().toString().contains(TEMP_MARK))
+                 .forEach(entries::add);
+        }
+        return entries;
+    }
+
+    // rename first, so no lookup can read a half-deleted entry
+    private boolean remove(Path entry) {
+        Path doomed = entry.resolveSibling(entry.getFileName() + TEMP_MARK + "-evicted-" + System.nanoTime());
+        try {
+            Files.move(entry, doomed, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            return false;   // already gone, or cannot rename here
+        }
+        deleteQuietly(doomed);
+        return true;
+    }
+
+    // mark as recently used for LRU eviction
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // only affects eviction order
+        }
+    }
+
+    private static FileTime lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            long size = 0;
+            for (Path p : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator)
+                size += Files.size(p);
+            return size;
+        } catch (IOException | UncheckedIOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            List<Path> all = new ArrayList<>();
+            files.forEach(all::add);
+            for (int i = all.size() - 1; i >= 0; i--)
+                Files.deleteIfExists(all.get(i));
+        } catch (IOException ignored) {
+            // leftover temp folder; harmless
+        }
+    }
+}
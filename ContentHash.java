@@ -0,0 +1,47 @@
+/***********************************************
+ * ContentHash.java
+ * SHA-256 helpers used to key the caches.
+ * Values are length-prefixed before hashing, so
+ * ("ab","c") and ("a","bc") never collide.
+ ***********************************************/
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public class ContentHash {
+
+    private final MessageDigest digest;
+
+    public ContentHash() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public ContentHash add(byte[] bytes) {
+        int n = bytes.length;
+        digest.update(new byte[] { (byte) (n >>> 24), (byte) (n >>> 16), (byte) (n >>> 8), (byte) n });
+        digest.update(bytes);
+        return this;
+    }
+
+    public ContentHash add(String s) {
+        return add((s == null ? "" : s).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String toHex() {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest())
+            sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    public static String of(String... values) {
+        ContentHash h = new ContentHash();
+        for (String v : values) h.add(v);
+        return h.toHex();
+    }
+}
@@ -3,14 +3,23 @@
  * Central controller linking UI and backend.
  * Handles:
  * - Creating suites & cases
- * - Executing test suites (V1 + V2)
- * - Saving/Loading TestSuiteResult (V2)
- * - Comparing results (V2)
+ * - Executing test suites (V1 + V2, one pass)
+ * - Incremental regrading against a saved result
+ * - Journaling runs and resuming interrupted ones
+ * - Saving/Loading TestSuiteResult (V2), also async
+ * - Timing metrics of a run, saved next to the result
+ * - Comparing results across N rounds (V2)
  ***********************************************/
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 public class Coordinator {
 
@@ -19,6 +28,18 @@ public class Coordinator {
     private ListofTestCase testcaseList;
 
     private ResultFileManager rfm = new ResultFileManager();
+    private ExecutionEngine engine = new ExecutionEngine();
+    private String journalPath;
+
+    // Background reads for the async load/compare (daemon: never blocks exit)
+    private static final ExecutorService RESULT_IO = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "result-io");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Progress is reported every this many records (and at the end)
+    private static final int PROGRESS_STEP = 256;
 
     public Coordinator() {
         this.listOfTestSuites = new ListOfTestSuite();
@@ -72,6 +93,116 @@ public class Coordinator {
         }
     }
 
+    // ------------ EXECUTION SETTINGS --------------
+    // Number of students whose tests run concurrently (default: number of cores).
+    public void setParallelism(int parallelism) {
+        engine.setParallelism(parallelism);
+    }
+
+    public int getParallelism() {
+        return engine.getParallelism();
+    }
+
+    // Number of students compiled concurrently (default: number of cores).
+    public void setCompileParallelism(int compileParallelism) {
+        engine.setCompileParallelism(compileParallelism);
+    }
+
+    public int getCompileParallelism() {
+        return engine.getCompileParallelism();
+    }
+
+    // Capacity of the queues between discover, compile and run stages;
+    // a full queue makes the earlier stage wait.
+    public void setQueueCapacity(int queueCapacity) {
+        engine.setQueueCapacity(queueCapacity);
+    }
+
+    public int getQueueCapacity() {
+        return engine.getQueueCapacity();
+    }
+
+    // FORK (default) starts a JVM per test case; IN_PROCESS runs main()
+    // in this JVM and should only be used for trusted submissions.
+    // Java cannot kill a thread: an IN_PROCESS run that times out keeps
+    // spinning in this JVM until it exits. To bound that, a student's
+    // tests after such a run are forked, and once
+    // MainInvoker.MAX_ABANDONED_THREADS are stuck, every run is.
+    public void setExecutionMode(ExecutionMode mode) {
+        engine.setExecutionMode(mode);
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return engine.getExecutionMode();
+    }
+
+    // Per-test wall-clock timeout and per-stream output cap (all modes)
+    public void setRunLimits(long timeoutMillis, int outputLimitBytes) {
+        engine.setRunLimits(new RunLimits(timeoutMillis, outputLimitBytes));
+    }
+
+    public RunLimits getRunLimits() {
+        return engine.getRunLimits();
+    }
+
+    // Pool of reusable runner JVMs used by ExecutionMode.WORKER_POOL:
+    // number of workers, jobs before a worker is recycled, job routing.
+    public void configureWorkerPool(int size, int jobsPerWorker, WorkerPool.Routing routing) {
+        engine.configureWorkerPool(size, jobsPerWorker, routing);
+    }
+
+    public void shutdownWorkerPool() {
+        engine.shutdownWorkerPool();
+    }
+
+    // Append-only journal of every outcome, written during runs so an
+    // interrupted run can be resumed (null = no journal).
+    public void setJournalPath(String journalPath) {
+        this.journalPath = journalPath;
+    }
+
+    public String getJournalPath() {
+        return journalPath;
+    }
+
+    // Content-addressed cache of compiled submissions (shared by all runs);
+    // on by default, bounded by CompileCache.getMaxBytes()
+    public CompileCache getCompileCache() {
+        return CompileCache.shared();
+    }
+
+    public void setCompileCacheEnabled(boolean enabled) {
+        CompileCache.shared().setEnabled(enabled);
+    }
+
+    public boolean isCompileCacheEnabled() {
+        return CompileCache.shared().isEnabled();
+    }
+
+    // Opt-in on-disk cache of test outputs per (submission, test input).
+    // Bypass forces every pair to run again (and refreshes the cache).
+    public void setOutputCacheEnabled(boolean enabled) {
+        OutputCache.shared().setEnabled(enabled);
+    }
+
+    public void setOutputCacheBypass(boolean bypass) {
+        OutputCache.shared().setBypass(bypass);
+    }
+
+    public OutputCache getOutputCache() {
+        return OutputCache.shared();
+    }
+
+    // Per-phase timings and latency histograms for every run
+    // (ExecutionReport.getMetrics); off by default.
+    public void setMetricsEnabled(boolean enabled) {
+        engine.setMetricsEnabled(enabled);
+    }
+
+    public boolean isMetricsEnabled() {
+        return engine.isMetricsEnabled();
+    }
+
     // ------------ VALIDATION --------------
     private void validateSuite(TestSuite suite) {
         if (suite.getTestCases() == null || suite.getTestCases().isEmpty())
@@ -87,47 +218,62 @@ public class Coordinator {
         }
     }
 
-    // ------------ EXECUTE TEST SUITE V1 (UI VIEW RESULT) --------------
-    public List<Result> executeTestSuite(String suiteName, String folderPath) {
-
-        TestSuite suite = getTestSuite(suiteName);
-        if (suite == null) throw new IllegalArgumentException("Test Suite not found.");
-
-        validateSuite(suite);
+    // ------------ EXECUTE TEST SUITE (SINGLE PASS) --------------
+    // Compiles and runs each (student, test case) pair exactly once and
+    // returns both the V1 result list and the V2 TestSuiteResult.
+    public ExecutionReport runTestSuite(String suiteName, String folderPath) {
+        return runTestSuite(suiteName, folderPath, GradingListener.NONE);
+    }
 
-        File folder = new File(folderPath);
-        if (!folder.exists() || !folder.isDirectory())
-            throw new IllegalArgumentException("Invalid submissions folder.");
+    // Same pass, publishing progress events to `listener` as they happen
+    // (see GradingListener for threading).
+    public ExecutionReport runTestSuite(String suiteName, String folderPath,
+                                        GradingListener listener) {
+        return execute(suiteName, folderPath, null, listener);
+    }
 
-        listOfPrograms.generatePrograms(folderPath);
+    // ------------ INCREMENTAL REGRADE --------------
+    // Re-runs only the test cases added or changed since `previous` was
+    // produced; unchanged outcomes are carried over, removed tests dropped.
+    public ExecutionReport regradeTestSuite(String suiteName, String folderPath,
+                                            TestSuiteResult previous) {
+        return regradeTestSuite(suiteName, folderPath, previous, GradingListener.NONE);
+    }
 
-        List<Result> results = new ArrayList<>();
+    public ExecutionReport regradeTestSuite(String suiteName, String folderPath,
+                                            TestSuiteResult previous, GradingListener listener) {
+        if (previous == null) throw new IllegalArgumentException("Previous result is required.");
 
-        for (Program p : listOfPrograms.getPrograms()) {
+        ExecutionReport report = execute(suiteName, folderPath, previous, listener);
+        System.out.println("[Coordinator] Regrade ran " + report.getExecutionsRun()
+                + " executions, saved " + report.getExecutionsSaved() + ".");
+        return report;
+    }
 
-            String compErr = p.compileAndReturnErrors();
-            if (compErr != null) {
-                results.add(new Result(p.getProgramName(), compErr));
-                continue;
-            }
+    // ------------ RESUME FROM JOURNAL --------------
+    // Replays the journal of an interrupted run and runs only the
+    // (student, test) pairs it does not have yet.
+    public ExecutionReport resumeTestSuite(String suiteName, String folderPath,
+                                           GradingListener listener) {
+        if (journalPath == null) throw new IllegalArgumentException("No journal configured.");
 
-            for (TestCase tc : suite.getTestCases()) {
-                String actual = p.run(tc.getInput());
-                boolean passed = tc.compareOutput(actual);
-                results.add(new Result(
-                        p.getProgramName(),
-                        tc.getTitle(),
-                        passed,
-                        tc.getExpectedOutput(),
-                        actual
-                ));
-            }
+        TestSuiteResult journaled;
+        try {
+            journaled = ResultJournal.replay(Paths.get(journalPath));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read journal: " + e.getMessage(), e);
         }
-        return results;
+        if (journaled == null)
+            System.out.println("[Coordinator] No journal at " + journalPath + ", starting from scratch.");
+
+        ExecutionReport report = execute(suiteName, folderPath, journaled, listener);
+        System.out.println("[Coordinator] Resume ran " + report.getExecutionsRun()
+                + " executions, reused " + report.getExecutionsSaved() + " from the journal.");
+        return report;
     }
 
-    // ------------ EXECUTE TEST SUITE V2 (SAVEABLE FORM) --------------
-    public TestSuiteResult executeTestSuiteV2(String suiteName, String folderPath) {
+    private ExecutionReport execute(String suiteName, String folderPath,
+                                    TestSuiteResult previous, GradingListener listener) {
 
         TestSuite suite = getTestSuite(suiteName);
         if (suite == null) throw new IllegalArgumentException("Test Suite not found.");
@@ -138,72 +284,224 @@ public class Coordinator {
         if (!folder.exists() || !folder.isDirectory())
             throw new IllegalArgumentException("Invalid submissions folder.");
 
-        listOfPrograms.generatePrograms(folderPath);
+        // discovery feeds the compile stage directly
+        ExecutionEngine.ProgramSource source = sink -> listOfPrograms.discoverPrograms(folderPath, sink);
 
-        TestSuiteResult tsr = new TestSuiteResult(suiteName);
+        if (journalPath == null)
+            return engine.execute(suite, source, previous, listener);
 
-        for (Program p : listOfPrograms.getPrograms()) {
-
-            StudentResult sr = new StudentResult(p.getProgramName());
+        try (ResultJournal journal = ResultJournal.create(Paths.get(journalPath), suite, previous)) {
+            return engine.execute(suite, source, previous, listener.andThen(journal));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write journal " + journalPath + ": " + e.getMessage(), e);
+        }
+    }
 
-            String compErr = p.compileAndReturnErrors();
-            if (compErr != null) {
-                sr.setCompileFailed();
-                tsr.addStudentResult(sr);
-                continue;
-            }
+    public TestSuiteResult regradeTestSuiteV2(String suiteName, String folderPath,
+                                              TestSuiteResult previous) {
+        return regradeTestSuite(suiteName, folderPath, previous).getSuiteResult();
+    }
 
-            for (TestCase tc : suite.getTestCases()) {
-                String actual = p.run(tc.getInput());
-                boolean passed = tc.compareOutput(actual);
-                sr.setOutcome(tc.getTitle(), passed);
-            }
-            tsr.addStudentResult(sr);
-        }
+    // ------------ EXECUTE TEST SUITE V1 (UI VIEW RESULT) --------------
+    public List<Result> executeTestSuite(String suiteName, String folderPath) {
+        return runTestSuite(suiteName, folderPath).getResults();
+    }
 
-        return tsr;
+    // ------------ EXECUTE TEST SUITE V2 (SAVEABLE FORM) --------------
+    public TestSuiteResult executeTestSuiteV2(String suiteName, String folderPath) {
+        return runTestSuite(suiteName, folderPath).getSuiteResult();
     }
 
     // ------------ SAVE & LOAD RESULTS --------------
-    public void saveTestSuiteResult(TestSuiteResult tsr, String path) {
-        rfm.saveResult(tsr, path);
+    // Both are recorded as ResultPersist JFR events.
+    public boolean saveTestSuiteResult(TestSuiteResult tsr, String path) {
+        ResultPersistEvent event = new ResultPersistEvent();
+        event.begin();
+        boolean saved = rfm.saveResult(tsr, path);
+        event.end();
+        if (event.shouldCommit()) commit(event, "save", path, tsr, saved);
+        return saved;
     }
 
     public TestSuiteResult loadTestSuiteResult(String path) {
-        return rfm.loadResult(path);
+        ResultPersistEvent event = new ResultPersistEvent();
+        event.begin();
+        TestSuiteResult tsr = rfm.loadResult(path);
+        event.end();
+        if (event.shouldCommit()) commit(event, "load", path, tsr, tsr != null);
+        return tsr;
     }
 
-    // ------------ COMPARE TWO RESULT FILES --------------
-    public List<ComparisonResult> compareResults(String file1, String file2) {
+    private static void commit(ResultPersistEvent event, String operation, String path,
+                               TestSuiteResult tsr, boolean success) {
+        event.operation = operation;
+        event.path = path;
+        event.success = success;
+        if (tsr != null) {
+            event.suite = tsr.getSuiteName();
+            event.students = tsr.getAllStudentNames().size();
+        }
+        if (path != null) {
+            File file = new File(path);
+            if (file.isFile()) event.bytes = file.length();
+        }
+        event.commit();
+    }
 
-        TestSuiteResult r1 = rfm.loadResult(file1);
-        TestSuiteResult r2 = rfm.loadResult(file2);
+    // Metrics of a run as JSON; by convention next to its result file
+    // (see metricsPathFor).
+    public boolean saveMetrics(GradingMetrics metrics, String path) {
+        try {
+            metrics.writeJson(Paths.get(path));
+            System.out.println("[Coordinator] Saved metrics to " + path);
+            return true;
+        } catch (IOException e) {
+            System.out.println("[Coordinator] Could not save metrics to " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
 
-        if (r1 == null || r2 == null)
-            return null;
+    public static String metricsPathFor(String resultPath) {
+        return resultPath + ".metrics.json";
+    }
 
-        Set<String> students = new HashSet<>();
-        students.addAll(r1.getAllStudentNames());
-        students.addAll(r2.getAllStudentNames());
+    /**
+     * Loads a result file on a background thread. `listener` gets the header
+     * as soon as it is read, then every student as it is decoded. Cancelling
+     * the future stops the read at the next student; I/O errors complete it
+     * exceptionally.
+     */
+    public CompletableFuture<TestSuiteResult> loadTestSuiteResultAsync(
+            String path, ResultStreamListener<StudentResult> listener) {
+
+        CompletableFuture<TestSuiteResult> future = new CompletableFuture<>();
+        RESULT_IO.execute(() -> {
+            try (ResultCursor cursor = rfm.openCursor(path)) {
+                TestSuiteResult tsr = cursor.getHeader();
+                long total = cursor.getStudentCount();
+                listener.opened(cursor.getSuiteName(), total);
+
+                long done = 0;
+                StudentResult sr;
+                while ((sr = cursor.next()) != null) {
+                    if (future.isDone()) return;   // cancelled
+                    tsr.addStudentResult(sr);
+                    listener.item(sr);
+                    if (++done % PROGRESS_STEP == 0) listener.progress(done, total);
+                }
+                listener.progress(done, total);
+                System.out.println("[Coordinator] Loaded " + done + " student results from " + path);
+                future.complete(tsr);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
 
-        List<ComparisonResult> results = new ArrayList<>();
+    // ------------ COMPARE RESULT FILES --------------
+    // Two rounds, kept for the original compare window; null if a file can't be read
+    public List<ComparisonResult> compareResults(String file1, String file2) {
+        List<StudentTrend> trends = compareResults(List.of(file1, file2));
+        if (trends == null)
+            return null;
 
-        for (String name : students) {
+        List<ComparisonResult> results = new ArrayList<>(trends.size());
+        for (StudentTrend t : trends)
+            results.add(new ComparisonResult(t.getStudentName(), t.getRate(0), t.getRate(1)));
+        return results;
+    }
 
-            StudentResult s1 = r1.getStudentResult(name);
-            StudentResult s2 = r2.getStudentResult(name);
+    // Trends across any number of rounds (oldest file first), in name order;
+    // null if a file can't be read
+    public List<StudentTrend> compareResults(List<String> files) {
+        List<StudentTrend> trends = new ArrayList<>();
+        try {
+            compareResults(files, trends::add);
+            return trends;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error comparing results: " + e.getMessage());
+            return null;
+        }
+    }
 
-            String rate1 = (s1 == null) ? "NO_INITIAL"
-                    : s1.didCompileFail() ? "NO_COMPILE"
-                    : s1.computeSuccessRate();
+    // Streaming form for large cohorts: trends go to `sink` as they are merged.
+    // Returns the number of students.
+    public int compareResults(List<String> files, Consumer<StudentTrend> sink)
+            throws IOException {
+        if (files == null || files.size() < 2)
+            throw new IllegalArgumentException("Select at least two result files.");
 
-            String rate2 = (s2 == null) ? "NO_RESUB"
-                    : s2.didCompileFail() ? "NO_COMPILE"
-                    : s2.computeSuccessRate();
+        List<ResultCursor> cursors = new ArrayList<>(files.size());
+        try {
+            for (String f : files)
+                cursors.add(rfm.openCursor(f));
+            return ResultComparison.merge(cursors, sink);
+        } finally {
+            closeAll(cursors);
+        }
+    }
 
-            results.add(new ComparisonResult(name, rate1, rate2));
+    /**
+     * compareResults(List, Consumer) on a background thread. `listener` gets
+     * the header once every file is open, then each trend as it is merged;
+     * progress counts student records read across all files. Cancelling the
+     * future stops the merge at the next student. Completes with the number
+     * of students.
+     */
+    public CompletableFuture<Integer> compareResultsAsync(
+            List<String> files, ResultStreamListener<StudentTrend> listener) {
+
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        if (files == null || files.size() < 2) {
+            future.completeExceptionally(new IllegalArgumentException("Select at least two result files."));
+            return future;
         }
 
-        return results;
+        RESULT_IO.execute(() -> {
+            List<ResultCursor> cursors = new ArrayList<>(files.size());
+            try {
+                long total = 0;
+                for (String f : files) {
+                    ResultCursor c = rfm.openCursor(f);
+                    cursors.add(c);
+                    total += c.getStudentCount();
+                }
+                listener.opened(cursors.get(0).getSuiteName(), total);
+
+                long all = total;
+                long[] done = {0};
+                long[] lastReported = {0};
+                int students = ResultComparison.merge(cursors, trend -> {
+                    if (future.isDone()) throw new CancellationException();
+                    listener.item(trend);
+                    for (int i = 0; i < trend.getRounds(); i++)
+                        if (trend.isPresent(i)) done[0]++;
+                    if (done[0] - lastReported[0] >= PROGRESS_STEP) {
+                        listener.progress(done[0], all);
+                        lastReported[0] = done[0];
+                    }
+                });
+                listener.progress(done[0], all);
+                future.complete(students);
+            } catch (CancellationException e) {
+                // cancelled by the caller; the future is already done
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                closeAll(cursors);
+            }
+        });
+        return future;
+    }
+
+    private static void closeAll(List<ResultCursor> cursors) {
+        for (ResultCursor c : cursors) {
+            try {
+                c.close();
+            } catch (IOException ignored) {
+                // read-only; nothing to lose
+            }
+        }
     }
 }
@@ -0,0 +1,548 @@
+/***********************************************
+ * ExecutionEngine.java
+ * Single execution pass over a test suite.
+ * Each student is compiled once and each
+ * (student, test case) pair is run once; every
+ * outcome is recorded in both the V1 Result list
+ * and the V2 TestSuiteResult at the same time.
+ *
+ * Execution is a pipeline of three stages joined by
+ * bounded queues (backpressure):
+ *   discover -> compile (pool) -> run (pool)
+ * so the first tests run while discovery and other
+ * compiles are still going. Each student's Result /
+ * StudentResult objects are only touched by the stage
+ * currently holding that student; they are merged on
+ * the calling thread in a fixed order, so output is
+ * deterministic.
+ *
+ * Given a previous TestSuiteResult, only test cases
+ * that are new or changed (by fingerprint) are run;
+ * everything else is carried over.
+ *
+ * With metrics enabled, each run also fills a
+ * GradingMetrics (phase timings, per-test and
+ * per-student latencies); when disabled, the
+ * timing code is skipped entirely.
+ *
+ * Every execution is also a TestExecution JFR
+ * event (committed only while a recording is on).
+ ***********************************************/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+public class ExecutionEngine {
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();          // run stage
+    private int compileParallelism = Runtime.getRuntime().availableProcessors();   // compile stage
+    private int queueCapacity = 2 * Runtime.getRuntime().availableProcessors();    // between stages
+    private ExecutionMode executionMode = ExecutionMode.FORK;
+    private RunLimits runLimits = RunLimits.DEFAULT;
+    private boolean metricsEnabled;
+
+    // Worker pool settings (WORKER_POOL mode); the pool is started lazily
+    private int workerPoolSize = Runtime.getRuntime().availableProcessors();
+    private int jobsPerWorker = 200;
+    private WorkerPool.Routing workerRouting = WorkerPool.Routing.ANY_IDLE;
+    private WorkerPool workerPool;
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        this.parallelism = parallelism;
+    }
+
+    public int getCompileParallelism() {
+        return compileParallelism;
+    }
+
+    public void setCompileParallelism(int compileParallelism) {
+        if (compileParallelism < 1)
+            throw new IllegalArgumentException("Compile parallelism must be at least 1.");
+        this.compileParallelism = compileParallelism;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 1)
+            throw new IllegalArgumentException("Queue capacity must be at least 1.");
+        this.queueCapacity = queueCapacity;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        if (executionMode == null)
+            throw new IllegalArgumentException("Execution mode is required.");
+        this.executionMode = executionMode;
+    }
+
+    public RunLimits getRunLimits() {
+        return runLimits;
+    }
+
+    public void setRunLimits(RunLimits runLimits) {
+        if (runLimits == null)
+            throw new IllegalArgumentException("Run limits are required.");
+        this.runLimits = runLimits;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    /**
+     * Configure the WORKER_POOL mode. A running pool is shut down and
+     * restarted with the new settings on the next execution.
+     */
+    public synchronized void configureWorkerPool(int size, int jobsPerWorker,
+                                                 WorkerPool.Routing routing) {
+        if (size < 1) throw new IllegalArgumentException("Pool size must be at least 1.");
+        if (jobsPerWorker < 1) throw new IllegalArgumentException("Jobs per worker must be at least 1.");
+        if (routing == null) throw new IllegalArgumentException("Routing is required.");
+
+        this.workerPoolSize = size;
+        this.jobsPerWorker = jobsPerWorker;
+        this.workerRouting = routing;
+        shutdownWorkerPool();
+    }
+
+    public synchronized void shutdownWorkerPool() {
+        if (workerPool != null) {
+            workerPool.close();
+            workerPool = null;
+        }
+    }
+
+    private synchronized WorkerPool workerPool() {
+        if (workerPool == null)
+            workerPool = new WorkerPool(workerPoolSize, jobsPerWorker, workerRouting);
+        return workerPool;
+    }
+
+    public ExecutionReport execute(TestSuite suite, List<Program> programs) {
+        return execute(suite, programs, null);
+    }
+
+    /**
+     * Incremental form: outcomes in `previous` are carried over for every
+     * test case whose fingerprint is unchanged, as long as the student's
+     * sources are unchanged too. Only added or changed test cases run;
+     * outcomes for tests no longer in the suite are dropped.
+     */
+    public ExecutionReport execute(TestSuite suite, List<Program> programs, TestSuiteResult previous) {
+        return execute(suite, sink -> programs.forEach(sink), previous, GradingListener.NONE, false);
+    }
+
+    /**
+     * Pipelined run over programs as they are discovered. Students are
+     * reported in name order, like ListOfPrograms.generatePrograms.
+     * Progress is published to `listener` while the run is going.
+     */
+    public ExecutionReport execute(TestSuite suite, ProgramSource source, TestSuiteResult previous,
+                                   GradingListener listener) {
+        return execute(suite, source, previous, listener, true);
+    }
+
+    private ExecutionReport execute(TestSuite suite, ProgramSource source, TestSuiteResult previous,
+                                    GradingListener listener, boolean sortByName) {
+
+        TestSuiteResult tsr = new TestSuiteResult(suite.getTitle());
+        for (TestCase tc : suite.getTestCases())
+            tsr.setTestFingerprint(tc.getTitle(), tc.getFingerprint());
+
+        WorkerPool pool = (executionMode == ExecutionMode.WORKER_POOL) ? workerPool() : null;
+        GradingMetrics metrics = metricsEnabled ? new GradingMetrics(suite.getTitle(), executionMode) : null;
+
+        List<StudentOutcome> outcomes = runPipeline(suite, source, pool, previous, listener,
+                tsr.getTitleDictionary(), metrics);
+        if (metrics != null) metrics.finish();
+
+        outcomes.sort(sortByName
+                ? Comparator.comparing((StudentOutcome o) -> o.studentResult.getStudentName())
+                : Comparator.comparingInt((StudentOutcome o) -> o.order));
+
+        List<Result> results = new ArrayList<>();
+        int run = 0;
+        int saved = 0;
+        for (StudentOutcome o : outcomes) {
+            results.addAll(o.results);
+            tsr.addStudentResult(o.studentResult);
+            run += o.executed;
+            saved += o.carriedOver;
+        }
+
+        return new ExecutionReport(results, tsr, run, saved, metrics);
+    }
+
+    // ------------ PIPELINE: discover -> compile -> run --------------
+    private List<StudentOutcome> runPipeline(TestSuite suite, ProgramSource source, WorkerPool pool,
+                                             TestSuiteResult previous, GradingListener listener,
+                                             TitleDictionary titles, GradingMetrics metrics) {
+
+        int compileWorkers = compileParallelism;
+        int runWorkers = parallelism;
+
+        BlockingQueue<StudentOutcome> toCompile = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<StudentOutcome> toRun = new ArrayBlockingQueue<>(queueCapacity);
+        List<StudentOutcome> finished = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger compilersLeft = new AtomicInteger(compileWorkers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                1 + compileWorkers + runWorkers, workerThreads());
+        try {
+            // stage 1: discovery feeds the compile queue (blocks when it is full)
+            executor.submit(() -> {
+                AtomicInteger order = new AtomicInteger();
+                long discoveryStart = System.nanoTime();
+                try {
+                    source.forEach(p -> {
+                        listener.studentDiscovered(p.getProgramName());
+                        StudentOutcome o = new StudentOutcome(p, order.getAndIncrement(), titles);
+                        if (metrics == null) {
+                            put(toCompile, o);
+                            return;
+                        }
+                        // time spent blocked here is backpressure, not scanning
+                        long waitStart = System.nanoTime();
+                        o.discoveredNanos = waitStart;
+                        put(toCompile, o);
+                        metrics.recordDiscoveryWait(System.nanoTime() - waitStart);
+                    });
+                    if (metrics != null) metrics.recordDiscovery(System.nanoTime() - discoveryStart);
+                    listener.discoveryFinished(order.get());
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    for (int i = 0; i < compileWorkers; i++) put(toCompile, StudentOutcome.END);
+                }
+            });
+
+            // stage 2: compile; failures skip the run stage
+            for (int i = 0; i < compileWorkers; i++) {
+                executor.submit(() -> {
+                    try {
+                        for (StudentOutcome o = take(toCompile); o != StudentOutcome.END; o = take(toCompile)) {
+                            try {
+                                if (compileStudent(o, listener, metrics)) {
+                                    put(toRun, o);
+                                } else {
+                                    finished.add(o);
+                                    recordStudent(o, metrics);
+                                    listener.studentFinished(o.studentResult, o.results);
+                                }
+                            } catch (Throwable t) {
+                                failure.compareAndSet(null, t);
+                            }
+                        }
+                    } finally {
+                        // last compiler out tells the runners to stop
+                        if (compilersLeft.decrementAndGet() == 0)
+                            for (int k = 0; k < runWorkers; k++) put(toRun, StudentOutcome.END);
+                    }
+                });
+            }
+
+            // stage 3: run the test cases
+            List<Future<?>> runners = new ArrayList<>();
+            for (int i = 0; i < runWorkers; i++) {
+                runners.add(executor.submit(() -> {
+                    for (StudentOutcome o = take(toRun); o != StudentOutcome.END; o = take(toRun)) {
+                        try {
+                            runStudent(suite, o, pool, previous, listener, metrics);
+                            finished.add(o);
+                            recordStudent(o, metrics);
+                            listener.studentFinished(o.studentResult, o.results);
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> f : runners) f.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Execution interrupted.", e);
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Throwable t = failure.get();
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t != null) throw new IllegalStateException("Execution failed.", t);
+
+        return new ArrayList<>(finished);
+    }
+
+    private static void put(BlockingQueue<StudentOutcome> q, StudentOutcome o) {
+        try {
+            q.put(o);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Execution interrupted.", e);
+        }
+    }
+
+    private static StudentOutcome take(BlockingQueue<StudentOutcome> q) {
+        try {
+            return q.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Execution interrupted.", e);
+        }
+    }
+
+    private static void recordStudent(StudentOutcome o, GradingMetrics metrics) {
+        if (metrics != null)
+            metrics.recordStudent(o.program.getProgramName(), System.nanoTime() - o.discoveredNanos, o.executed);
+    }
+
+    // Compile stage. Returns false (and records the error) if compilation failed.
+    private boolean compileStudent(StudentOutcome o, GradingListener listener, GradingMetrics metrics) {
+        Program p = o.program;
+
+        long start = (metrics == null) ? 0 : System.nanoTime();
+        String compErr = p.compileAndReturnErrors();
+        if (metrics != null) metrics.recordCompile(p.getProgramName(), System.nanoTime() - start);
+        o.studentResult.setSubmissionHash(p.getSubmissionHash());
+        listener.studentCompiled(p.getProgramName(), p.getSubmissionHash(), compErr);
+        if (compErr != null) {
+            o.results.add(new Result(p.getProgramName(), compErr));
+            o.studentResult.setCompileFailed();
+            return false;
+        }
+        return true;
+    }
+
+    // Run stage; everything it creates stays local to the outcome until merged.
+    private void runStudent(TestSuite suite, StudentOutcome o, WorkerPool pool,
+                            TestSuiteResult previous, GradingListener listener,
+                            GradingMetrics metrics) {
+        Program p = o.program;
+
+        StudentResult prior = reusablePrior(previous, p);
+
+        // carried-over outcomes are final right away; the rest are run
+        List<TestCase> cases = suite.getTestCases();
+        Result[] results = new Result[cases.size()];
+        List<Integer> toRun = new ArrayList<>();
+        for (int i = 0; i < cases.size(); i++) {
+            TestCase tc = cases.get(i);
+            Boolean carried = null;
+            if (prior != null && tc.getFingerprint().equals(previous.getTestFingerprint(tc.getTitle())))
+                carried = prior.getOutcome(tc.getTitle());
+
+            if (carried == null) {
+                toRun.add(i);
+                continue;
+            }
+            results[i] = Result.carriedOver(
+                    p.getProgramName(), tc.getTitle(), carried, tc.getExpectedOutput());
+            o.studentResult.setOutcome(tc.getTitle(), carried);
+            o.carriedOver++;
+            listener.testFinished(results[i]);
+        }
+
+        List<TestCase> runCases = new ArrayList<>();
+        for (int i : toRun) runCases.add(cases.get(i));
+
+        runAll(p, runCases, pool, listener, metrics, (k, run) -> {
+            TestCase tc = runCases.get(k);
+            long compareStart = (metrics == null) ? 0 : System.nanoTime();
+            String actual = run.firstLine();
+            // a run cut short by a limit never counts as a pass
+            boolean passed = run.getStatus() == RunStatus.COMPLETED && tc.compareOutput(actual);
+            if (metrics != null) metrics.record(GradingMetrics.Phase.COMPARE, System.nanoTime() - compareStart);
+            Result r = new Result(
+                    p.getProgramName(),
+                    tc.getTitle(),
+                    passed,
+                    tc.getExpectedOutput(),
+                    actual,
+                    run.getStatus()
+            );
+            r.setUsage(run.getUsage());
+            results[toRun.get(k)] = r;
+            o.studentResult.setOutcome(tc.getTitle(), passed);
+            o.studentResult.addUsage(run.getUsage());
+            o.executed++;
+            listener.testFinished(r);
+        });
+
+        o.results.addAll(Arrays.asList(results));
+    }
+
+    // Previous result for this student, if it was graded from the same sources
+    private static StudentResult reusablePrior(TestSuiteResult previous, Program p) {
+        if (previous == null || p.getSubmissionHash() == null) return null;
+
+        StudentResult prior = previous.getStudentResult(p.getProgramName());
+        if (prior == null || prior.didCompileFail()) return null;
+        if (!p.getSubmissionHash().equals(prior.getSubmissionHash())) return null;
+        return prior;
+    }
+
+    // Runs every test case and hands each outcome (by index) to `done` on
+    // this thread as soon as it is known. Pairs already in the OutputCache
+    // are not run again.
+    private void runAll(Program p, List<TestCase> cases, WorkerPool pool,
+                        GradingListener listener, GradingMetrics metrics,
+                        BiConsumer<Integer, RunOutcome> done) {
+
+        OutputCache cache = OutputCache.shared();
+        boolean cached = cache.usableFor(p.getSubmissionHash());
+
+        RunOutcome[] runs = new RunOutcome[cases.size()];
+        String[] keys = new String[cases.size()];
+        List<Integer> toRun = new ArrayList<>();
+
+        for (int i = 0; i < cases.size(); i++) {
+            if (cached) {
+                keys[i] = OutputCache.key(p.getSubmissionHash(), cases.get(i).getInput(), runLimits);
+                runs[i] = cache.lookup(keys[i]);
+            }
+            if (runs[i] == null) {
+                toRun.add(i);
+            } else {
+                if (metrics != null) metrics.recordOutputCacheHit();
+                TestExecutionEvent event = new TestExecutionEvent();
+                if (event.shouldCommit()) {
+                    event.cached = true;
+                    commit(event, p, cases.get(i), runs[i]);
+                }
+                done.accept(i, runs[i]);
+            }
+        }
+
+        if (executionMode == ExecutionMode.BATCH && !toRun.isEmpty()) {
+            // one JVM runs the whole batch, so every test starts together
+            List<String> inputs = new ArrayList<>();
+            for (int i : toRun) {
+                inputs.add(cases.get(i).getInput());
+                listener.testStarted(p.getProgramName(), cases.get(i).getTitle());
+            }
+            long batchStart = (metrics == null) ? 0 : System.nanoTime();
+            List<RunOutcome> batch = p.executeBatch(inputs, runLimits);
+            if (metrics != null) metrics.record(GradingMetrics.Phase.BATCH, System.nanoTime() - batchStart);
+            for (int k = 0; k < toRun.size(); k++) {
+                int i = toRun.get(k);
+                runs[i] = batch.get(k);
+                // no begin(): the run time comes from the harness, not this thread
+                TestExecutionEvent event = new TestExecutionEvent();
+                if (event.shouldCommit()) {
+                    event.batchSize = toRun.size();
+                    commit(event, p, cases.get(i), runs[i]);
+                }
+                // the harness times each input itself (-1 if it died before saying)
+                long wall = runs[i].getUsage().getWallNanos();
+                if (metrics != null && wall >= 0)
+                    metrics.recordExecution(p.getProgramName(), cases.get(i).getTitle(), wall);
+                if (cached) cache.store(keys[i], runs[i]);
+                done.accept(i, runs[i]);
+            }
+        } else {
+            for (int i : toRun) {
+                listener.testStarted(p.getProgramName(), cases.get(i).getTitle());
+                TestExecutionEvent event = new TestExecutionEvent();
+                event.begin();
+                long runStart = (metrics == null) ? 0 : System.nanoTime();
+                runs[i] = runTest(p, cases.get(i).getInput(), pool);
+                event.end();
+                if (event.shouldCommit()) commit(event, p, cases.get(i), runs[i]);
+                if (metrics != null) {
+                    metrics.recordExecution(p.getProgramName(), cases.get(i).getTitle(), System.nanoTime() - runStart);
+                    metrics.recordProcess(runs[i]);
+                }
+                if (cached) cache.store(keys[i], runs[i]);
+                done.accept(i, runs[i]);
+            }
+        }
+    }
+
+    private void commit(TestExecutionEvent event, Program p, TestCase tc, RunOutcome run) {
+        event.student = p.getProgramName();
+        event.test = tc.getTitle();
+        event.mode = executionMode.name();
+        event.setOutcome(run);
+        event.commit();
+    }
+
+    private RunOutcome runTest(Program p, String input, WorkerPool pool) {
+        switch (executionMode) {
+            case IN_PROCESS:
+                return p.executeInProcess(input, runLimits);
+            case WORKER_POOL:
+                return p.executeInWorker(input, pool, runLimits);
+            case FORK:
+            default:
+                return p.execute(input, runLimits);
+        }
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger n = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "grader-worker-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /** Supplies programs to the pipeline, e.g. as they are discovered. */
+    public interface ProgramSource {
+        void forEach(Consumer<Program> sink);
+    }
+
+    // one student travelling through the pipeline
+    private static class StudentOutcome {
+        // end-of-stream marker for the stage queues
+        static final StudentOutcome END = new StudentOutcome(null, -1, null);
+
+        final Program program;
+        final int order;             // position in the source
+        final List<Result> results = new ArrayList<>();
+        final StudentResult studentResult;
+        int executed;
+        int carriedOver;
+        long discoveredNanos;        // only set when metrics are on
+
+        StudentOutcome(Program program, int order, TitleDictionary titles) {
+            this.program = program;
+            this.order = order;
+            this.studentResult = (program == null) ? null : new StudentResult(program.getProgramName(), titles);
+        }
+    }
+}
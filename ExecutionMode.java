@@ -0,0 +1,28 @@
+/***********************************************
+ * ExecutionMode.java
+ * How a student's program is launched for each
+ * test case.
+ ***********************************************/
+
+public enum ExecutionMode {
+
+    // New "java <MainClass>" process per test case.
+    // Slowest, but the only fully isolated option: use it for
+    // untrusted or misbehaving submissions.
+    FORK,
+
+    // main() is invoked inside the grader JVM through a throwaway
+    // class loader, with its own stdin/stdout and System.exit trapped.
+    IN_PROCESS,
+
+    // Each test case is sent to a pool of long-lived worker JVMs
+    // (see WorkerPool), which run main() in a fresh class loader.
+    // Avoids per-test JVM startup while keeping student code out
+    // of the grader JVM.
+    WORKER_POOL,
+
+    // One new JVM per student (see BatchHarness) that runs main()
+    // once per test input, each time in a fresh class loader.
+    // Cuts the process count by the size of the suite.
+    BATCH
+}
@@ -0,0 +1,57 @@
+/***********************************************
+ * ExecutionReport.java
+ * Output of one pass of the ExecutionEngine.
+ * Holds both views of the same run:
+ * - List<Result>      (V1, class report / details)
+ * - TestSuiteResult   (V2, saveable summary)
+ * and its GradingMetrics when they were enabled.
+ ***********************************************/
+
+import java.util.List;
+
+public class ExecutionReport {
+
+    private List<Result> results;
+    private TestSuiteResult suiteResult;
+    private int executionsRun;       // (student, test) pairs actually executed
+    private int executionsSaved;     // pairs carried over from a previous result
+    private GradingMetrics metrics;  // null unless metrics were enabled
+
+    public ExecutionReport(List<Result> results, TestSuiteResult suiteResult) {
+        this(results, suiteResult, 0, 0);
+    }
+
+    public ExecutionReport(List<Result> results, TestSuiteResult suiteResult,
+                           int executionsRun, int executionsSaved) {
+        this(results, suiteResult, executionsRun, executionsSaved, null);
+    }
+
+    public ExecutionReport(List<Result> results, TestSuiteResult suiteResult,
+                           int executionsRun, int executionsSaved, GradingMetrics metrics) {
+        this.results = results;
+        this.suiteResult = suiteResult;
+        this.executionsRun = executionsRun;
+        this.executionsSaved = executionsSaved;
+        this.metrics = metrics;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public TestSuiteResult getSuiteResult() {
+        return suiteResult;
+    }
+
+    public int getExecutionsRun() {
+        return executionsRun;
+    }
+
+    public int getExecutionsSaved() {
+        return executionsSaved;
+    }
+
+    public GradingMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,358 @@
+/***********************************************
+ * GraderCli.java
+ * Headless batch grading (no JavaFX needed).
+ *
+ * Usage: java GraderCli --suite <dir> --submissions <dir> [options]
+ *
+ *   --suite <dir>              folder of test case files (all files, by name)
+ *   --submissions <dir>        root folder with one sub-folder per student
+ *   --title <name>             suite title (default: suite folder name)
+ *   --parallelism <n>          students running tests at once
+ *   --compile-parallelism <n>  students compiling at once
+ *   --mode <mode>              FORK | IN_PROCESS | WORKER_POOL | BATCH
+ *   --timeout <ms>             per-test wall-clock limit
+ *   --output-limit <bytes>     per-test output cap
+ *   --previous <file>          regrade against a saved TestSuiteResult
+ *   --result <file>            save the TestSuiteResult here
+ *   --report <file>            write a JSON report here
+ *   --journal <file>           journal every outcome here while running
+ *   --resume                   continue the run recorded in --journal
+ *   --output-cache             reuse outputs of unchanged submissions
+ *   --no-compile-cache         always compile (skip the compile cache)
+ *   --clear-compile-cache      empty the compile cache before grading
+ *   --metrics                  time every phase; print a summary and save
+ *                              <result>.metrics.json next to --result
+ *   --quiet                    no per-student progress lines
+ *
+ * Exit codes:
+ *   0  every student compiled and passed every test
+ *   1  graded, but some students failed or did not compile
+ *   2  bad arguments or unreadable inputs
+ *   3  grading itself failed
+ *   4  results could not be written
+ *   5  no students were graded (empty or wrong
+ *      --submissions folder)
+ ***********************************************/
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GraderCli {
+
+    static final int EXIT_ALL_PASSED = 0;
+    static final int EXIT_FAILURES = 1;
+    static final int EXIT_USAGE = 2;
+    static final int EXIT_GRADING_FAILED = 3;
+    static final int EXIT_WRITE_FAILED = 4;
+    static final int EXIT_NO_STUDENTS = 5;
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+
+        Map<String, String> opts;
+        try {
+            opts = parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("[GraderCli] " + e.getMessage());
+            printUsage();
+            return EXIT_USAGE;
+        }
+
+        if (opts.containsKey("help")) {
+            printUsage();
+            return EXIT_USAGE;
+        }
+
+        String suiteDir = opts.get("suite");
+        String submissions = opts.get("submissions");
+        if (suiteDir == null || submissions == null) {
+            System.err.println("[GraderCli] --suite and --submissions are required.");
+            printUsage();
+            return EXIT_USAGE;
+        }
+
+        Coordinator coordinator = new Coordinator();
+        String title;
+        TestSuiteResult previous = null;
+
+        // ------------ SETTINGS & SUITE --------------
+        try {
+            if (opts.containsKey("parallelism"))
+                coordinator.setParallelism(Integer.parseInt(opts.get("parallelism")));
+            if (opts.containsKey("compile-parallelism"))
+                coordinator.setCompileParallelism(Integer.parseInt(opts.get("compile-parallelism")));
+            if (opts.containsKey("mode"))
+                coordinator.setExecutionMode(ExecutionMode.valueOf(opts.get("mode").toUpperCase()));
+            if (opts.containsKey("timeout") || opts.containsKey("output-limit")) {
+                RunLimits d = coordinator.getRunLimits();
+                coordinator.setRunLimits(
+                        Long.parseLong(opts.getOrDefault("timeout", String.valueOf(d.getTimeoutMillis()))),
+                        Integer.parseInt(opts.getOrDefault("output-limit", String.valueOf(d.getOutputLimitBytes()))));
+            }
+            if (opts.containsKey("output-cache"))
+                coordinator.setOutputCacheEnabled(true);
+            if (opts.containsKey("no-compile-cache"))
+                coordinator.setCompileCacheEnabled(false);
+            if (opts.containsKey("metrics"))
+                coordinator.setMetricsEnabled(true);
+            if (opts.containsKey("journal"))
+                coordinator.setJournalPath(opts.get("journal"));
+            if (opts.containsKey("resume") && !opts.containsKey("journal"))
+                throw new IllegalArgumentException("--resume needs --journal.");
+            if (opts.containsKey("resume") && opts.containsKey("previous"))
+                throw new IllegalArgumentException("--resume and --previous cannot be combined.");
+
+            title = opts.getOrDefault("title", new File(suiteDir).getName());
+            loadSuite(coordinator, title, new File(suiteDir));
+
+            if (opts.containsKey("previous")) {
+                previous = coordinator.loadTestSuiteResult(opts.get("previous"));
+                if (previous == null)
+                    throw new IllegalArgumentException("Cannot read previous result: " + opts.get("previous"));
+            }
+        } catch (IllegalArgumentException e) {
+            // also covers NumberFormatException and unknown modes
+            System.err.println("[GraderCli] " + e.getMessage());
+            return EXIT_USAGE;
+        }
+
+        if (opts.containsKey("clear-compile-cache")) {
+            CompileCache cache = coordinator.getCompileCache();
+            try {
+                cache.clear();
+                System.out.println("[GraderCli] Cleared the compile cache in " + cache.getDirectory());
+            } catch (IOException e) {
+                // entries are content-addressed, so grading with them is still correct
+                System.err.println("[GraderCli] Could not clear the compile cache: " + e.getMessage());
+            }
+        }
+
+        // ------------ GRADE --------------
+        int testsPerStudent = coordinator.getTestSuite(title).getTestCases().size();
+        boolean quiet = opts.containsKey("quiet");
+        AtomicInteger finished = new AtomicInteger();
+
+        GradingListener progress = new GradingListener() {
+            @Override
+            public void discoveryFinished(int students) {
+                if (!quiet) System.out.println("[GraderCli] Found " + students + " submissions.");
+            }
+
+            @Override
+            public void studentFinished(StudentResult sr, List<Result> results) {
+                int n = finished.incrementAndGet();
+                if (!quiet) System.out.printf("[GraderCli] %4d  %-24s %s%n",
+                        n, sr.getStudentName(), sr.computeSuccessRate());
+            }
+        };
+
+        System.out.println("[GraderCli] Grading " + submissions + " against '" + title + "' ("
+                + testsPerStudent + " tests, " + coordinator.getExecutionMode() + ").");
+
+        long start = System.nanoTime();
+        ExecutionReport report;
+        try {
+            if (opts.containsKey("resume"))
+                report = coordinator.resumeTestSuite(title, submissions, progress);
+            else if (previous != null)
+                report = coordinator.regradeTestSuite(title, submissions, previous, progress);
+            else
+                report = coordinator.runTestSuite(title, submissions, progress);
+        } catch (IllegalArgumentException e) {
+            // invalid suite or submissions folder
+            System.err.println("[GraderCli] " + e.getMessage());
+            return EXIT_USAGE;
+        } catch (RuntimeException e) {
+            System.err.println("[GraderCli] Grading failed: " + e);
+            e.printStackTrace();
+            return EXIT_GRADING_FAILED;
+        } finally {
+            coordinator.shutdownWorkerPool();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // ------------ SUMMARY --------------
+        TestSuiteResult tsr = report.getSuiteResult();
+        int students = tsr.getAllStudentNames().size();
+        int compileErrors = 0;
+        int allPassed = 0;
+        for (String name : tsr.getAllStudentNames()) {
+            StudentResult sr = tsr.getStudentResult(name);
+            if (sr.didCompileFail()) compileErrors++;
+            else if (passedAll(sr, testsPerStudent)) allPassed++;
+        }
+
+        double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+        System.out.printf("[GraderCli] %d students: %d passed all, %d with failures, %d compile errors.%n",
+                students, allPassed, students - allPassed - compileErrors, compileErrors);
+        System.out.printf("[GraderCli] %d executions (%d carried over) in %.1f s, %.1f tests/sec.%n",
+                report.getExecutionsRun(), report.getExecutionsSaved(), seconds,
+                report.getExecutionsRun() / seconds);
+        System.out.println("[GraderCli] " + coordinator.getCompileCache().formatStats());
+        if (report.getMetrics() != null)
+            for (String line : report.getMetrics().summaryLines()) System.out.println("[GraderCli] " + line);
+
+        // ------------ OUTPUTS --------------
+        int exit = (allPassed == students) ? EXIT_ALL_PASSED : EXIT_FAILURES;
+        if (students == 0) {
+            // nothing graded is never a pass (wrong or unsynced folder)
+            System.err.println("[GraderCli] No students found in " + submissions
+                    + " (no sub-folder with a Java file containing main).");
+            exit = EXIT_NO_STUDENTS;
+        }
+
+        if (opts.containsKey("result")) {
+            if (!coordinator.saveTestSuiteResult(tsr, opts.get("result"))) exit = EXIT_WRITE_FAILED;
+            if (report.getMetrics() != null && !coordinator.saveMetrics(report.getMetrics(),
+                    Coordinator.metricsPathFor(opts.get("result")))) exit = EXIT_WRITE_FAILED;
+        }
+        if (opts.containsKey("report")) {
+            try {
+                writeJsonReport(new File(opts.get("report")), title, report, elapsedMillis);
+                System.out.println("[GraderCli] Wrote report to " + opts.get("report"));
+            } catch (IOException e) {
+                System.err.println("[GraderCli] Could not write report: " + e.getMessage());
+                exit = EXIT_WRITE_FAILED;
+            }
+        }
+        return exit;
+    }
+
+    // Every file in the folder (sorted by name) must be a valid test case
+    private static void loadSuite(Coordinator coordinator, String title, File dir) {
+        File[] files = dir.listFiles(File::isFile);
+        if (files == null) throw new IllegalArgumentException("Not a folder: " + dir);
+        if (files.length == 0) throw new IllegalArgumentException("No test case files in " + dir);
+        Arrays.sort(files, Comparator.comparing(File::getName));
+
+        coordinator.createTestSuite(title);
+        for (File f : files) {
+            TestCase tc = coordinator.loadTestCaseFromFile(f);
+            if (tc == null) throw new IllegalArgumentException("Invalid test case file: " + f);
+            coordinator.addTestCaseToSuite(tc.getTitle());
+        }
+    }
+
+    // every test of the suite graded and passed
+    private static boolean passedAll(StudentResult sr, int testsPerStudent) {
+        return sr.getGradedCount() == testsPerStudent && sr.getPassedCount() == testsPerStudent;
+    }
+
+    // ------------ JSON REPORT --------------
+    private static void writeJsonReport(File file, String title, ExecutionReport report,
+                                        long elapsedMillis) throws IOException {
+
+        // results are grouped by student already (engine merge order)
+        Map<String, List<Result>> byStudent = new LinkedHashMap<>();
+        for (Result r : report.getResults())
+            byStudent.computeIfAbsent(r.getProgramName(), k -> new ArrayList<>()).add(r);
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+
+            JsonWriter w = new JsonWriter(out);
+            w.beginObject()
+                    .name("suite").value(title)
+                    .name("elapsedMillis").value(elapsedMillis)
+                    .name("executionsRun").value(report.getExecutionsRun())
+                    .name("executionsSaved").value(report.getExecutionsSaved())
+                    .name("students").beginArray();
+
+            for (Map.Entry<String, List<Result>> e : byStudent.entrySet()) {
+                StudentResult sr = report.getSuiteResult().getStudentResult(e.getKey());
+                w.beginObject()
+                        .name("student").value(e.getKey())
+                        .name("submissionHash").value(sr == null ? null : sr.getSubmissionHash())
+                        .name("successRate").value(sr == null ? null : sr.computeSuccessRate());
+                if (sr != null) writeUsage(w, sr.getUsage());
+
+                Result comp = null;
+                for (Result r : e.getValue()) if (r.isCompilationError()) comp = r;
+                w.name("compileError").value(comp == null ? null : comp.getCompileError());
+
+                w.name("tests").beginArray();
+                if (comp == null) {
+                    for (Result r : e.getValue()) {
+                        w.beginObject()
+                                .name("title").value(r.getTestCaseTitle())
+                                .name("status").value(r.getStatusLabel())
+                                .name("passed").value(r.isPassed())
+                                .name("carriedOver").value(r.isCarriedOver())
+                                .name("expected").value(r.getExpected())
+                                .name("actual").value(r.getActual());
+                        writeUsage(w, r.getUsage());
+                        w.endObject();
+                    }
+                }
+                w.endArray().endObject();
+            }
+
+            w.endArray().endObject();
+        }
+    }
+
+    // -1 = not measured in this execution mode
+    private static void writeUsage(JsonWriter w, ResourceUsage u) throws IOException {
+        if (!u.isKnown()) return;
+        w.name("usage").beginObject()
+                .name("wallMillis").value(u.getWallNanos() / 1e6)
+                .name("cpuMillis").value(u.getCpuNanos() < 0 ? -1 : u.getCpuNanos() / 1e6)
+                .name("peakRssKb").value(u.getPeakRssKb())
+                .name("stdoutBytes").value(u.getStdoutBytes())
+                .name("stderrBytes").value(u.getStderrBytes())
+                .endObject();
+    }
+
+    // ------------ ARGUMENTS --------------
+    private static final List<String> FLAGS = Arrays.asList("output-cache", "no-compile-cache", "clear-compile-cache",
+            "metrics", "resume", "quiet", "help");
+    private static final List<String> OPTIONS = Arrays.asList(
+            "suite", "submissions", "title", "parallelism", "compile-parallelism", "mode",
+            "timeout", "output-limit", "previous", "result", "report", "journal");
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--"))
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            String key = args[i].substring(2);
+
+            if (FLAGS.contains(key)) {
+                opts.put(key, "true");
+            } else if (OPTIONS.contains(key)) {
+                if (i + 1 >= args.length)
+                    throw new IllegalArgumentException("Missing value for --" + key);
+                opts.put(key, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: --" + key);
+            }
+        }
+        return opts;
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: java GraderCli --suite <dir> --submissions <dir> [options]");
+        System.err.println("  --title <name>  --parallelism <n>  --compile-parallelism <n>");
+        System.err.println("  --mode FORK|IN_PROCESS|WORKER_POOL|BATCH  --timeout <ms>  --output-limit <bytes>");
+        System.err.println("  --previous <file>  --result <file>  --report <file.json>  --output-cache  --quiet");
+        System.err.println("  --journal <file>  --resume  --metrics  --no-compile-cache  --clear-compile-cache");
+        System.err.println("Exit codes: 0 all passed, 1 some failed or did not compile, 2 bad arguments,");
+        System.err.println("  3 grading failed, 4 outputs not written, 5 no students graded");
+    }
+}
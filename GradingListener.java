@@ -0,0 +1,77 @@
+/***********************************************
+ * GradingListener.java
+ * Live events from one grading run, published
+ * while it is still going (e.g. to fill in the
+ * class report and a progress bar).
+ *
+ * Callbacks come from the engine's worker threads,
+ * possibly several at once, so implementations must
+ * be thread-safe and quick; UI code should hand off
+ * to its own thread. Per student the order is:
+ *   studentDiscovered -> studentCompiled
+ *   -> (testStarted / testFinished)* -> studentFinished
+ * Carried-over tests only get testFinished.
+ ***********************************************/
+
+import java.util.List;
+
+public interface GradingListener {
+
+    GradingListener NONE = new GradingListener() { };
+
+    default void studentDiscovered(String student) { }
+
+    // Called once after the last studentDiscovered.
+    default void discoveryFinished(int students) { }
+
+    // compileError is null when compilation succeeded; submissionHash may be null.
+    default void studentCompiled(String student, String submissionHash, String compileError) { }
+
+    default void testStarted(String student, String testCaseTitle) { }
+
+    default void testFinished(Result result) { }
+
+    default void studentFinished(StudentResult studentResult, List<Result> results) { }
+
+    // Sends every event to this listener, then to `other`.
+    default GradingListener andThen(GradingListener other) {
+        GradingListener first = this;
+        return new GradingListener() {
+            @Override
+            public void studentDiscovered(String student) {
+                first.studentDiscovered(student);
+                other.studentDiscovered(student);
+            }
+
+            @Override
+            public void discoveryFinished(int students) {
+                first.discoveryFinished(students);
+                other.discoveryFinished(students);
+            }
+
+            @Override
+            public void studentCompiled(String student, String submissionHash, String compileError) {
+                first.studentCompiled(student, submissionHash, compileError);
+                other.studentCompiled(student, submissionHash, compileError);
+            }
+
+            @Override
+            public void testStarted(String student, String testCaseTitle) {
+                first.testStarted(student, testCaseTitle);
+                other.testStarted(student, testCaseTitle);
+            }
+
+            @Override
+            public void testFinished(Result result) {
+                first.testFinished(result);
+                other.testFinished(result);
+            }
+
+            @Override
+            public void studentFinished(StudentResult studentResult, List<Result> results) {
+                first.studentFinished(studentResult, results);
+                other.studentFinished(studentResult, results);
+            }
+        };
+    }
+}
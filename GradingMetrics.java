@@ -0,0 +1,295 @@
+/***********************************************
+ * GradingMetrics.java
+ * Where the time of one grading run went.
+ *
+ * Filled in by the ExecutionEngine while it runs
+ * (only when metrics are enabled) and written as
+ * JSON next to the saved TestSuiteResult.
+ *
+ *   discovery     folder scan, and time the scan
+ *                 waited on a full compile queue
+ *   compile       per student (cache hits included)
+ *   spawn         per forked process: start() call
+ *   first_output  per forked process: start until
+ *                 the first stdout byte
+ *   run           per execution (wall clock; in
+ *                 BATCH mode as timed by the harness)
+ *   batch         per BatchHarness JVM (BATCH mode)
+ *   compare       per execution: output comparison
+ *   student       per student: discovered .. done
+ *
+ * Executions are also kept per test case, and the
+ * slowest students are listed with their compile
+ * and run shares.
+ ***********************************************/
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class GradingMetrics {
+
+    public enum Phase {
+        COMPILE, SPAWN, FIRST_OUTPUT, RUN, BATCH, COMPARE, STUDENT;
+
+        public String key() {
+            return name().toLowerCase();
+        }
+    }
+
+    // Students listed in the "slowest" table
+    public static final int SLOWEST = 10;
+
+    private final String suiteTitle;
+    private final String mode;
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    private volatile long discoveryNanos = -1;
+    private final LongAdder discoveryWaitNanos = new LongAdder();
+
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+    private final Map<String, LatencyHistogram> perTest = new ConcurrentHashMap<>();
+    private final Map<String, StudentTiming> perStudent = new ConcurrentHashMap<>();
+    private final LongAdder outputCacheHits = new LongAdder();
+
+    public GradingMetrics(String suiteTitle, ExecutionMode mode) {
+        this.suiteTitle = suiteTitle;
+        this.mode = mode.name();
+        for (Phase p : Phase.values()) phases.put(p, new LatencyHistogram());
+    }
+
+    // ------------ RECORDING (engine threads) --------------
+    void record(Phase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    void recordExecution(String student, String testTitle, long runNanos) {
+        phases.get(Phase.RUN).record(runNanos);
+        perTest.computeIfAbsent(testTitle, k -> new LatencyHistogram()).record(runNanos);
+        timing(student).runNanos.add(runNanos);
+    }
+
+    void recordProcess(RunOutcome run) {
+        phases.get(Phase.SPAWN).record(run.getSpawnNanos());
+        phases.get(Phase.FIRST_OUTPUT).record(run.getFirstOutputNanos());
+    }
+
+    void recordCompile(String student, long nanos) {
+        phases.get(Phase.COMPILE).record(nanos);
+        timing(student).compileNanos = nanos;
+    }
+
+    void recordStudent(String student, long nanos, int executions) {
+        phases.get(Phase.STUDENT).record(nanos);
+        StudentTiming t = timing(student);
+        t.totalNanos = nanos;
+        t.executions = executions;
+    }
+
+    void recordDiscovery(long nanos) {
+        discoveryNanos = nanos;
+    }
+
+    void recordDiscoveryWait(long nanos) {
+        discoveryWaitNanos.add(nanos);
+    }
+
+    void recordOutputCacheHit() {
+        outputCacheHits.increment();
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    private StudentTiming timing(String student) {
+        return perStudent.computeIfAbsent(student, k -> new StudentTiming());
+    }
+
+    // ------------ READING --------------
+    public String getSuiteTitle() {
+        return suiteTitle;
+    }
+
+    public long getWallNanos() {
+        return (endNanos == 0 ? System.nanoTime() : endNanos) - startNanos;
+    }
+
+    public LatencyHistogram getPhase(Phase phase) {
+        return phases.get(phase);
+    }
+
+    /** Wall time of the discovery stage (-1 while it is still running). */
+    public long getDiscoveryNanos() {
+        return discoveryNanos;
+    }
+
+    /** Part of the discovery time spent waiting for room in the compile queue. */
+    public long getDiscoveryWaitNanos() {
+        return discoveryWaitNanos.sum();
+    }
+
+    public long getOutputCacheHits() {
+        return outputCacheHits.sum();
+    }
+
+    /** Test titles to their execution times, in title order. */
+    public Map<String, LatencyHistogram> getPerTest() {
+        return new TreeMap<>(perTest);
+    }
+
+    /** Up to `n` finished students, slowest first. */
+    public List<StudentRow> slowestStudents(int n) {
+        List<Map.Entry<String, StudentTiming>> done = new ArrayList<>();
+        for (Map.Entry<String, StudentTiming> e : perStudent.entrySet())
+            if (e.getValue().totalNanos >= 0) done.add(e);
+        done.sort(Comparator.comparingLong((Map.Entry<String, StudentTiming> e) -> e.getValue().totalNanos)
+                .reversed().thenComparing(Map.Entry::getKey));
+
+        List<StudentRow> rows = new ArrayList<>();
+        for (Map.Entry<String, StudentTiming> e : done.subList(0, Math.min(n, done.size()))) {
+            StudentTiming t = e.getValue();
+            rows.add(new StudentRow(e.getKey(), t.totalNanos, t.compileNanos, t.runNanos.sum(), t.executions));
+        }
+        return rows;
+    }
+
+    /** One line per phase that saw any samples, e.g. for the CLI. */
+    public List<String> summaryLines() {
+        List<String> lines = new ArrayList<>();
+        if (discoveryNanos >= 0)
+            lines.add(String.format("%-13s %s (%s waiting on the compile queue)", "discovery",
+                    formatNanos(discoveryNanos), formatNanos(getDiscoveryWaitNanos())));
+        for (Phase p : Phase.values()) {
+            LatencyHistogram h = phases.get(p);
+            if (h.getCount() == 0) continue;
+            lines.add(String.format("%-13s n=%-6d mean %-9s p50 %-9s p95 %-9s max %s", p.key(), h.getCount(),
+                    formatNanos((long) h.getMeanNanos()), formatNanos(h.percentileNanos(0.50)),
+                    formatNanos(h.percentileNanos(0.95)), formatNanos(h.getMaxNanos())));
+        }
+        return lines;
+    }
+
+    public static String formatNanos(long nanos) {
+        if (nanos < 1_000_000) return String.format("%.0f us", nanos / 1e3);
+        if (nanos < 10_000_000_000L) return String.format("%.1f ms", nanos / 1e6);
+        return String.format("%.2f s", nanos / 1e9);
+    }
+
+    // ------------ JSON --------------
+    public void writeJson(Path file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(file), StandardCharsets.UTF_8))) {
+            writeJson(new JsonWriter(out));
+        }
+    }
+
+    public void writeJson(JsonWriter w) throws IOException {
+        w.beginObject()
+                .name("suite").value(suiteTitle)
+                .name("mode").value(mode)
+                .name("wallMillis").value(LatencyHistogram.millis(getWallNanos()))
+                .name("students").value(phases.get(Phase.STUDENT).getCount())
+                .name("executions").value(phases.get(Phase.RUN).getCount())
+                .name("outputCacheHits").value(getOutputCacheHits());
+
+        w.name("discovery").beginObject()
+                .name("wallMillis").value(LatencyHistogram.millis(discoveryNanos))
+                .name("waitMillis").value(LatencyHistogram.millis(getDiscoveryWaitNanos()))
+                .name("scanMillis").value(LatencyHistogram.millis(Math.max(0, discoveryNanos - getDiscoveryWaitNanos())))
+                .endObject();
+
+        w.name("phases").beginObject();
+        for (Phase p : Phase.values()) {
+            w.name(p.key());
+            phases.get(p).writeJson(w);
+        }
+        w.endObject();
+
+        w.name("tests").beginArray();
+        for (Map.Entry<String, LatencyHistogram> e : getPerTest().entrySet()) {
+            LatencyHistogram h = e.getValue();
+            w.beginObject()
+                    .name("title").value(e.getKey())
+                    .name("count").value(h.getCount())
+                    .name("meanMillis").value(LatencyHistogram.millis(h.getMeanNanos()))
+                    .name("p50Millis").value(LatencyHistogram.millis(h.percentileNanos(0.50)))
+                    .name("p95Millis").value(LatencyHistogram.millis(h.percentileNanos(0.95)))
+                    .name("maxMillis").value(LatencyHistogram.millis(h.getMaxNanos()))
+                    .endObject();
+        }
+        w.endArray();
+
+        w.name("slowestStudents").beginArray();
+        for (StudentRow row : slowestStudents(SLOWEST)) {
+            w.beginObject()
+                    .name("student").value(row.getStudent())
+                    .name("totalMillis").value(LatencyHistogram.millis(row.getTotalNanos()))
+                    .name("compileMillis").value(LatencyHistogram.millis(row.getCompileNanos()))
+                    .name("runMillis").value(LatencyHistogram.millis(row.getRunNanos()))
+                    .name("executions").value(row.getExecutions())
+                    .endObject();
+        }
+        w.endArray();
+
+        w.endObject();
+    }
+
+    /** One line of the slowest-students table. */
+    public static class StudentRow {
+        private final String student;
+        private final long totalNanos;
+        private final long compileNanos;   // -1 if the student was not compiled
+        private final long runNanos;
+        private final int executions;
+
+        StudentRow(String student, long totalNanos, long compileNanos, long runNanos, int executions) {
+            this.student = student;
+            this.totalNanos = totalNanos;
+            this.compileNanos = compileNanos;
+            this.runNanos = runNanos;
+            this.executions = executions;
+        }
+
+        public String getStudent() {
+            return student;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getCompileNanos() {
+            return compileNanos;
+        }
+
+        public long getRunNanos() {
+            return runNanos;
+        }
+
+        public int getExecutions() {
+            return executions;
+        }
+    }
+
+    // Written by the stage holding the student; the queues hand it over safely
+    private static class StudentTiming {
+        long compileNanos = -1;
+        final LongAdder runNanos = new LongAdder();
+        volatile long totalNanos = -1;
+        int executions;
+    }
+}
@@ -0,0 +1,136 @@
+/***********************************************
+ * JsonWriter.java
+ * Minimal streaming JSON writer for the machine-
+ * readable reports (no external dependencies).
+ *
+ *   w.beginObject().name("suite").value("S1")
+ *    .name("students").beginArray() ... .endArray()
+ *    .endObject();
+ *
+ * Commas are inserted automatically; output is
+ * indented two spaces per level.
+ ***********************************************/
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class JsonWriter {
+
+    private final Writer out;
+
+    // per open container: has it got an element yet?
+    private final Deque<Boolean> hasElement = new ArrayDeque<>();
+    private boolean afterName;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    // ------------ STRUCTURE --------------
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        writeString(name);
+        out.write(": ");
+        afterName = true;
+        return this;
+    }
+
+    // ------------ VALUES --------------
+    public JsonWriter value(String s) throws IOException {
+        separate();
+        if (s == null) out.write("null");
+        else writeString(s);
+        return this;
+    }
+
+    public JsonWriter value(long n) throws IOException {
+        separate();
+        out.write(Long.toString(n));
+        return this;
+    }
+
+    public JsonWriter value(double d) throws IOException {
+        separate();
+        out.write(Double.isFinite(d) ? Double.toString(d) : "null");
+        return this;
+    }
+
+    public JsonWriter value(boolean b) throws IOException {
+        separate();
+        out.write(b ? "true" : "false");
+        return this;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    // ------------ INTERNALS --------------
+    private JsonWriter open(char c) throws IOException {
+        separate();
+        out.write(c);
+        hasElement.push(false);
+        return this;
+    }
+
+    private JsonWriter close(char c) throws IOException {
+        boolean any = hasElement.pop();
+        if (any) newline();
+        out.write(c);
+        if (hasElement.isEmpty()) out.write(System.lineSeparator());
+        return this;
+    }
+
+    // comma + newline before every element except a value right after its name
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (hasElement.isEmpty()) return;
+        if (hasElement.pop()) out.write(',');
+        hasElement.push(true);
+        newline();
+    }
+
+    private void newline() throws IOException {
+        out.write(System.lineSeparator());
+        for (int i = 0; i < hasElement.size(); i++) out.write("  ");
+    }
+
+    private void writeString(String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) out.write(String.format("\\u%04x", (int) c));
+                    else out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,132 @@
+/***********************************************
+ * LatencyHistogram.java
+ * Lock-free histogram of durations (nanoseconds).
+ *
+ * Buckets are log-linear: every power of two is
+ * split into 8 equal sub-buckets, so any recorded
+ * value is known to within 12.5% while the whole
+ * range (1 ns .. centuries) fits in 488 counters.
+ * Count, sum, min and max are exact.
+ *
+ * record() is safe from any number of threads and
+ * never allocates.
+ ***********************************************/
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;                 // sub-buckets per power of two
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    public void record(long nanos) {
+        if (nanos < 0) return;   // "not measured"
+        counts.incrementAndGet(bucket(nanos));
+        count.increment();
+        sum.add(nanos);
+        if (nanos < min.get()) min.accumulateAndGet(nanos, Math::min);
+        if (nanos > max.get()) max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sum.sum();
+    }
+
+    public long getMinNanos() {
+        return getCount() == 0 ? 0 : min.get();
+    }
+
+    public long getMaxNanos() {
+        return getCount() == 0 ? 0 : max.get();
+    }
+
+    public double getMeanNanos() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getSumNanos() / n;
+    }
+
+    /**
+     * Estimated value below which a fraction `p` (0..1) of the samples
+     * fall: the middle of the bucket holding that sample, kept within
+     * the exact min and max.
+     */
+    public long percentileNanos(double p) {
+        long n = getCount();
+        if (n == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                long mid = lowerBound(i) + (upperBound(i) - lowerBound(i)) / 2;
+                return Math.max(getMinNanos(), Math.min(getMaxNanos(), mid));
+            }
+        }
+        return getMaxNanos();   // a record() raced with this read
+    }
+
+    // ------------ JSON --------------
+    /** Summary in milliseconds plus the non-empty buckets ("le" = bucket upper bound). */
+    public void writeJson(JsonWriter w) throws IOException {
+        w.beginObject()
+                .name("count").value(getCount())
+                .name("sumMillis").value(millis(getSumNanos()))
+                .name("meanMillis").value(millis(getMeanNanos()))
+                .name("minMillis").value(millis(getMinNanos()))
+                .name("p50Millis").value(millis(percentileNanos(0.50)))
+                .name("p90Millis").value(millis(percentileNanos(0.90)))
+                .name("p95Millis").value(millis(percentileNanos(0.95)))
+                .name("p99Millis").value(millis(percentileNanos(0.99)))
+                .name("maxMillis").value(millis(getMaxNanos()))
+                .name("buckets").beginArray();
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.get(i);
+            if (c == 0) continue;
+            w.beginObject()
+                    .name("leMillis").value(millis(upperBound(i)))
+                    .name("count").value(c)
+                    .endObject();
+        }
+        w.endArray().endObject();
+    }
+
+    static double millis(double nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;   // to the microsecond
+    }
+
+    // ------------ BUCKETS --------------
+    // 0..7 map to themselves; above that, the top SUB_BITS+1 bits pick the bucket
+    static int bucket(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        return (exp - SUB_BITS + 1) * SUB + (int) ((v >>> (exp - SUB_BITS)) & (SUB - 1));
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB) return bucket;
+        int exp = bucket / SUB + SUB_BITS - 1;
+        return (long) (SUB + bucket % SUB) << (exp - SUB_BITS);
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB) return bucket + 1;
+        int exp = bucket / SUB + SUB_BITS - 1;
+        long upper = lowerBound(bucket) + (1L << (exp - SUB_BITS));
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -1,11 +1,34 @@
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 public class ListOfPrograms {
 
+    private static final String MAIN_SIGNATURE = "public static void main(";
+
+    // Student folders are scanned concurrently; the work is I/O bound
+    // (often a network share), so use more threads than cores.
+    private static final int DISCOVERY_THREADS = 16;
+
+    // path -> (mtime, size, has main); repeat scans of unchanged files skip the read.
+    // Per instance, so it lives (and is collected) with its owner.
+    private final Map<String, ScanEntry> scanCache = new ConcurrentHashMap<>();
+
     private List<Program> programs;
 
     public ListOfPrograms() {
@@ -15,70 +38,169 @@ public class ListOfPrograms {
     /**
      * Generate Program objects by scanning each student folder.
      * Now supports MULTIPLE .java files per student (Version 2 requirement).
-     * 
+     *
      * For each folder:
-     *  - Look at all .java files
-     *  - Read the contents
-     *  - Detect which file contains "public static void main("
-     *  - Use that file as the MAIN file
-     * 
+     *  - Look at all .java files (in name order)
+     *  - Stream each file line by line until "public static void main(" is seen
+     *  - Use the first file that has it as the MAIN file
+     *
+     * Folders are scanned in parallel; the resulting list is sorted by
+     * student name. Files whose path, mtime and size are unchanged since
+     * the last scan by this instance are not read again. A folder whose
+     * scan fails is reported and skipped; the other folders still count.
+     *
      * Students MUST have exactly one main file in their submission.
      */
     public void generatePrograms(String rootFolderPath) {
+        discoverPrograms(rootFolderPath, p -> { });
+    }
+
+    /**
+     * Same scan as generatePrograms, but each Program is also handed to
+     * `sink` as soon as its folder has been scanned (from a discovery
+     * thread, in completion order), so grading can start before the whole
+     * tree has been walked. getPrograms() holds the sorted list afterwards.
+     *
+     * A folder that cannot be scanned is reported and skipped. Anything
+     * thrown by `sink`, or an interrupt, ends the scan and is rethrown
+     * (the interrupt as an IllegalStateException), so the caller never
+     * mistakes a partial cohort for a complete one.
+     */
+    public void discoverPrograms(String rootFolderPath, Consumer<Program> sink) {
 
         programs.clear();
 
         File root = new File(rootFolderPath);
         if (!root.exists() || !root.isDirectory()) return;
 
-        File[] studentFolders = root.listFiles();
+        File[] studentFolders = root.listFiles(File::isDirectory);
         if (studentFolders == null) return;
+        Arrays.sort(studentFolders, Comparator.comparing(File::getName));
+
+        ExecutorService pool = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(DISCOVERY_THREADS, studentFolders.length)), r -> {
+                    Thread t = new Thread(r, "discovery");
+                    t.setDaemon(true);
+                    return t;
+                });
+        try {
+            List<Future<Program>> found = new ArrayList<>();
+            for (File folder : studentFolders) {
+                found.add(pool.submit(() -> {
+                    Program p;
+                    try {
+                        p = discoverProgram(folder);
+                    } catch (RuntimeException e) {
+                        // only this folder is lost; the sink's own failures propagate
+                        System.out.println("[ListOfPrograms] Discovery failed for "
+                                + folder.getName() + ": " + e);
+                        return null;
+                    }
+                    if (p != null) sink.accept(p);
+                    return p;
+                }));
+            }
 
-        for (File folder : studentFolders) {
+            for (Future<Program> f : found) {
+                Program p = f.get();
+                if (p != null) programs.add(p);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Discovery interrupted.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException("Discovery failed.", cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 
-            if (!folder.isDirectory()) continue;
+    // Scan one student folder; null if it has no usable main file
+    private Program discoverProgram(File folder) {
 
-            String studentName = folder.getName();
-            File[] javaFiles = folder.listFiles((dir, name) -> name.endsWith(".java"));
+        String studentName = folder.getName();
+        File[] javaFiles = folder.listFiles((dir, name) -> name.endsWith(".java"));
 
-            if (javaFiles == null || javaFiles.length == 0) {
-                System.out.println("[ListOfPrograms] No Java files found for: " + studentName);
-                continue;
-            }
+        if (javaFiles == null || javaFiles.length == 0) {
+            System.out.println("[ListOfPrograms] No Java files found for: " + studentName);
+            return null;
+        }
+        Arrays.sort(javaFiles, Comparator.comparing(File::getName));
 
-            String mainFilePath = null;
+        String mainFilePath = null;
 
-            // === SEARCH ALL FILES FOR THE MAIN METHOD ===
-            for (File f : javaFiles) {
-                try {
-                    String content = Files.readString(f.toPath());
-                    if (content.contains("public static void main(")) {
-                        mainFilePath = f.getAbsolutePath();
-                        break;
-                    }
-                } catch (IOException e) {
-                    System.out.println("[ListOfPrograms] Failed to read file: " + f.getName());
+        // === SEARCH ALL FILES FOR THE MAIN METHOD ===
+        for (File f : javaFiles) {
+            try {
+                if (hasMainMethod(f)) {
+                    mainFilePath = f.getAbsolutePath();
+                    break;
                 }
+            } catch (IOException e) {
+                System.out.println("[ListOfPrograms] Failed to read file: " + f.getName());
             }
+        }
 
-            if (mainFilePath == null) {
-                System.out.println("[ListOfPrograms] NO MAIN METHOD FOUND for: " + studentName);
-                // You may add an option to create a Program with compile error, but better to skip.
-                continue;
-            }
+        if (mainFilePath == null) {
+            System.out.println("[ListOfPrograms] NO MAIN METHOD FOUND for: " + studentName);
+            // You may add an option to create a Program with compile error, but better to skip.
+            return null;
+        }
 
-            // === MAIN FILE FOUND, CREATE PROGRAM OBJECT ===
-            Program p = new Program(
-                    studentName,
-                    folder.getAbsolutePath(),
-                    mainFilePath
-            );
+        // === MAIN FILE FOUND, CREATE PROGRAM OBJECT ===
+        return new Program(
+                studentName,
+                folder.getAbsolutePath(),
+                mainFilePath
+        );
+    }
 
-            programs.add(p);
+    // Reads only as far as the first main signature; cached by path + mtime + size
+    private boolean hasMainMethod(File f) throws IOException {
+
+        String path = f.getAbsolutePath();
+        long mtime = f.lastModified();
+        long size = f.length();
+
+        ScanEntry cached = scanCache.get(path);
+        if (cached != null && cached.mtime == mtime && cached.size == size)
+            return cached.hasMain;
+
+        boolean hasMain = false;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(f.toPath()),
+                StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE)))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.contains(MAIN_SIGNATURE)) {
+                    hasMain = true;
+                    break;
+                }
+            }
         }
+
+        scanCache.put(path, new ScanEntry(mtime, size, hasMain));
+        return hasMain;
     }
 
     public List<Program> getPrograms() {
         return programs;
     }
+
+    private static class ScanEntry {
+        final long mtime;
+        final long size;
+        final boolean hasMain;
+
+        ScanEntry(long mtime, long size, boolean hasMain) {
+            this.mtime = mtime;
+            this.size = size;
+            this.hasMain = hasMain;
+        }
+    }
 }
@@ -1,19 +1,33 @@
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 public class MainApp extends Application {
@@ -37,6 +51,7 @@ public class MainApp extends Application {
 
     // Last executed suite result (for saving)
     private TestSuiteResult lastExecutedSuiteResult;
+    private GradingMetrics lastExecutedMetrics;   // null unless timing was on
 
     @Override
     public void start(Stage stage) {
@@ -563,6 +578,30 @@ public class MainApp extends Application {
         HBox pathRow = new HBox(10, pathField, browseBtn);
         pathRow.setAlignment(Pos.CENTER_LEFT);
 
+        CheckBox metricsBox = new CheckBox("Collect timing metrics");
+        metricsBox.setSelected(coordinator.isMetricsEnabled());
+
+        // compiled submissions are reused across runs (bounded, least recently used go first)
+        CompileCache compileCache = coordinator.getCompileCache();
+        CheckBox compileCacheBox = new CheckBox("Use compile cache");
+        compileCacheBox.setSelected(coordinator.isCompileCacheEnabled());
+        compileCacheBox.setTooltip(new Tooltip(String.format("%s (at most %d MB)",
+                compileCache.getDirectory(), compileCache.getMaxBytes() / (1024 * 1024))));
+
+        Button clearCacheBtn = new Button("Clear compile cache");
+        clearCacheBtn.setOnAction(e -> {
+            try {
+                compileCache.clear();
+                new Alert(Alert.AlertType.INFORMATION, "Compile cache cleared.").showAndWait();
+            } catch (IOException ex) {
+                new Alert(Alert.AlertType.ERROR,
+                        "Could not clear the compile cache: " + ex.getMessage()).showAndWait();
+            }
+        });
+
+        HBox cacheRow = new HBox(10, compileCacheBox, clearCacheBtn);
+        cacheRow.setAlignment(Pos.CENTER_LEFT);
+
         Button executeBtn = new Button("Execute");
         Button cancelBtn = new Button("Cancel");
 
@@ -577,59 +616,12 @@ public class MainApp extends Application {
                 return;
             }
 
-            // Loading dialog (unchanged style)
-            Stage loading = new Stage();
-            Label loadingLabel = new Label("Executing Test Suite…");
-            ProgressIndicator spinner = new ProgressIndicator();
-            VBox loadingBox = new VBox(15, loadingLabel, spinner);
-            loadingBox.setAlignment(Pos.CENTER);
-            loadingBox.setPadding(new Insets(20));
-            loading.setScene(new Scene(loadingBox, 260, 150));
-            loading.initOwner(owner);
-            loading.show();
-
-            // V2: wrap both v1 + v2 in one task
-            Task<ExecutionResultBundle> task = new Task<>() {
-                @Override
-                protected ExecutionResultBundle call() {
-                    ExecutionResultBundle b = new ExecutionResultBundle();
-                    b.v1Results = coordinator.executeTestSuite(suiteName, folderPath);
-                    b.v2SuiteResult = coordinator.executeTestSuiteV2(suiteName, folderPath);
-                    return b;
-                }
-            };
-
-            task.setOnSucceeded(ev -> {
-                loading.close();
-                ExecutionResultBundle bundle = task.getValue();
-                List<Result> results = bundle.v1Results;
-
-                // store V2 result for saving later
-                lastExecutedSuiteResult = bundle.v2SuiteResult;
-                if (lastExecutedSuiteResult != null) {
-                    btnSaveSuiteResult.setDisable(false);
-                }
-
-                if (results == null || results.isEmpty()) {
-                    new Alert(Alert.AlertType.INFORMATION,
-                            "Execution finished, but no results were produced."
-                    ).showAndWait();
-                } else {
-                    popup.close();
-                    showClassReportWindow(owner, results);
-                }
-            });
-
-            task.setOnFailed(ev -> {
-                loading.close();
-                Throwable ex = task.getException();
-                new Alert(Alert.AlertType.ERROR,
-                        "Execution failed: " + (ex == null ? "" : ex.getMessage())
-                ).showAndWait();
-                ex.printStackTrace();
-            });
+            coordinator.setMetricsEnabled(metricsBox.isSelected());
+            coordinator.setCompileCacheEnabled(compileCacheBox.isSelected());
 
-            new Thread(task).start();
+            // results stream into the class report while the run goes on
+            popup.close();
+            showLiveClassReportWindow(owner, suiteName, folderPath);
         });
 
         cancelBtn.setOnAction(e -> popup.close());
@@ -640,22 +632,18 @@ public class MainApp extends Application {
         VBox root = new VBox(12,
                 suiteLabel, suiteField,
                 pathLabel, pathRow,
+                metricsBox,
+                cacheRow,
                 buttonRow
         );
         root.setAlignment(Pos.CENTER_LEFT);
         root.setPadding(new Insets(20));
 
-        popup.setScene(new Scene(root, 500, 230));
+        popup.setScene(new Scene(root, 500, 300));
         popup.initOwner(owner);
         popup.show();
     }
 
-    // helper bundle for execute v1+v2
-    private static class ExecutionResultBundle {
-        List<Result> v1Results;
-        TestSuiteResult v2SuiteResult;
-    }
-
     // ============= SAVE TEST SUITE RESULT (V2) =============
     private void showSaveSuiteResultPopup(Stage owner) {
 
@@ -668,15 +656,22 @@ public class MainApp extends Application {
 
         FileChooser chooser = new FileChooser();
         chooser.setTitle("Save Test Suite Result");
-        chooser.setInitialFileName("TestSuiteResult.ser");
+        chooser.setInitialFileName("TestSuiteResult.tsr");
         File file = chooser.showSaveDialog(owner);
         if (file == null) return;
 
         coordinator.saveTestSuiteResult(lastExecutedSuiteResult, file.getAbsolutePath());
 
-        new Alert(Alert.AlertType.INFORMATION,
-                "Test Suite Result saved successfully."
-        ).showAndWait();
+        // timing metrics travel with the result they describe
+        String message = "Test Suite Result saved successfully.";
+        if (lastExecutedMetrics != null) {
+            String metricsPath = Coordinator.metricsPathFor(file.getAbsolutePath());
+            message += coordinator.saveMetrics(lastExecutedMetrics, metricsPath)
+                    ? "\nTiming metrics saved to " + new File(metricsPath).getName() + "."
+                    : "\nTiming metrics could not be saved.";
+        }
+
+        new Alert(Alert.AlertType.INFORMATION, message).showAndWait();
     }
 
     // ============= LOAD TEST SUITE RESULT (V2) =============
@@ -687,30 +682,70 @@ public class MainApp extends Application {
         File file = chooser.showOpenDialog(owner);
         if (file == null) return;
 
-        TestSuiteResult result = coordinator.loadTestSuiteResult(file.getAbsolutePath());
-        if (result == null) {
-            new Alert(Alert.AlertType.ERROR,
-                    "Failed to load result file."
-            ).showAndWait();
-            return;
-        }
-
-        // Very simple text-based UI
         Stage stage = new Stage();
         stage.setTitle("Loaded Test Suite Result");
+        stage.initOwner(owner);
 
-        TextArea area = new TextArea();
-        area.setEditable(false);
-        area.setText(result.formatAsText()); // you implement formatAsText() in TestSuiteResult
+        Label suiteLabel = new Label();
+        suiteLabel.setStyle("-fx-font-weight: bold;");
+
+        TableView<StudentResult> table = new TableView<>();
+        TableColumn<StudentResult, String> nameCol = new TableColumn<>("Student");
+        nameCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getStudentName()));
+        nameCol.setPrefWidth(220);
+        TableColumn<StudentResult, String> rateCol = new TableColumn<>("Success Rate");
+        rateCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().computeSuccessRate()));
+        rateCol.setPrefWidth(150);
+        table.getColumns().add(nameCol);
+        table.getColumns().add(rateCol);
+        VBox.setVgrow(table, Priority.ALWAYS);
+
+        ProgressBar bar = new ProgressBar(0);
+        bar.setMaxWidth(Double.MAX_VALUE);
+        Label status = new Label("Reading…");
+        Button cancelBtn = new Button("Cancel");
 
-        Scene scene = new Scene(area, 500, 500);
-        stage.setScene(scene);
-        stage.initOwner(owner);
-        stage.show();
+        // the window opens once the header is read; rows stream in after
+        RowFeed<StudentResult> feed = new RowFeed<>(table.getItems(), bar, status, (suite, total) -> {
+            suiteLabel.setText("Suite Name: " + suite + "   (" + total + " students)");
+            stage.show();
+        });
+        CompletableFuture<TestSuiteResult> load =
+                coordinator.loadTestSuiteResultAsync(file.getAbsolutePath(), feed);
+
+        load.whenComplete((tsr, ex) -> Platform.runLater(() -> {
+            feed.finish();
+            cancelBtn.setText("Close");
+            if (ex == null) {
+                status.setText(tsr.getAllStudentNames().size() + " students loaded.");
+            } else if (load.isCancelled()) {
+                status.setText("Cancelled after " + table.getItems().size() + " students.");
+            } else if (!feed.isOpened()) {
+                new Alert(Alert.AlertType.ERROR,
+                        "Failed to load result file."
+                ).showAndWait();
+            } else {
+                status.setText("Failed: " + rootMessage(ex));
+            }
+        }));
+
+        cancelBtn.setOnAction(e -> {
+            if (load.isDone()) stage.close();
+            else load.cancel(true);
+        });
+        stage.setOnHidden(e -> load.cancel(true));
+
+        VBox root = new VBox(10, suiteLabel, table, bar, new HBox(10, status), cancelBtn);
+        root.setPadding(new Insets(15));
+        stage.setScene(new Scene(root, 500, 500));
     }
 
     // ============= CLASS REPORT (color-coded + save report) =============
-    private void showClassReportWindow(Stage owner, List<Result> results) {
+    // Opens at the start of a run and fills in as students finish
+    private void showLiveClassReportWindow(Stage owner, String suiteName, String folderPath) {
+
+        TestSuite suite = coordinator.getTestSuite(suiteName);
+        int testsPerStudent = (suite == null) ? 0 : suite.getTestCases().size();
 
         Stage stage = new Stage();
         stage.setTitle("Class Report");
@@ -718,77 +753,77 @@ public class MainApp extends Application {
         Label header = new Label("=== CLASS REPORT ===");
         header.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
 
-        Map<String, List<Result>> byStudent = results.stream()
-                .collect(Collectors.groupingBy(Result::getProgramName));
-
-        VBox content = new VBox(15);
-        content.setPadding(new Insets(10));
+        ProgressBar progressBar = new ProgressBar(0);
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+        Label progressLabel = new Label("Discovering submissions…");
 
-        for (Map.Entry<String, List<Result>> entry : byStudent.entrySet()) {
-            String student = entry.getKey();
-            List<Result> studentResults = entry.getValue();
+        // virtualized: one row per student, test rows built on expand
+        ClassReportView report = new ClassReportView(this::showResultDetailsWindow, MainApp::actualText);
+        VBox.setVgrow(report.getNode(), Priority.ALWAYS);
 
-            VBox studentBox = new VBox(5);
-            Label studentLabel = new Label("Student: " + student);
-            studentLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold;");
+        // counters are bumped from grader threads and read by the ticker
+        AtomicInteger discovered = new AtomicInteger();
+        AtomicInteger testsDone = new AtomicInteger();
+        AtomicBoolean discoveryDone = new AtomicBoolean();
+        long startNanos = System.nanoTime();
 
-            Separator sep = new Separator();
-            studentBox.getChildren().addAll(studentLabel, sep);
-
-            boolean hasCompilationError = studentResults.stream()
-                    .anyMatch(Result::isCompilationError);
+        GradingListener listener = new GradingListener() {
+            @Override
+            public void studentDiscovered(String student) {
+                discovered.incrementAndGet();
+            }
 
-            if (hasCompilationError) {
-                Result comp = studentResults.stream()
-                        .filter(Result::isCompilationError)
-                        .findFirst().orElse(null);
+            @Override
+            public void discoveryFinished(int students) {
+                discoveryDone.set(true);
+            }
 
-                Label compErr = new Label("COMPILATION ERROR — No test cases executed");
-                compErr.setStyle("-fx-text-fill: red;");
+            @Override
+            public void studentCompiled(String student, String submissionHash, String compileError) {
+                // a student that does not compile has no tests left to run
+                if (compileError != null) testsDone.addAndGet(testsPerStudent);
+            }
 
-                Button viewBtn = new Button("View");
-                Result finalComp = comp;
-                viewBtn.setOnAction(e ->
-                        showResultDetailsWindow(student, finalComp)
-                );
+            @Override
+            public void testFinished(Result result) {
+                testsDone.incrementAndGet();
+            }
 
-                HBox row = new HBox(10, compErr, viewBtn);
-                row.setAlignment(Pos.CENTER_LEFT);
-                studentBox.getChildren().add(row);
+            @Override
+            public void studentFinished(StudentResult studentResult, List<Result> results) {
+                List<Result> copy = new ArrayList<>(results);
+                Platform.runLater(() -> report.addStudent(studentResult.getStudentName(), copy));
+            }
+        };
 
-            } else {
-                for (Result r : studentResults) {
-                    String status = r.isPassed() ? "PASS" : "FAIL";
-                    Label line = new Label(
-                            String.format("%-20s ............ %s", r.getTestCaseTitle(), status)
-                    );
-                    if (r.isPassed()) {
-                        line.setStyle("-fx-text-fill: green;");
-                    } else {
-                        line.setStyle("-fx-text-fill: red;");
-                    }
+        Runnable updateProgress = () -> {
+            int total = discovered.get() * testsPerStudent;
+            int done = testsDone.get();
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            double rate = seconds > 0 ? done / seconds : 0;
 
-                    Button viewBtn = new Button("View");
-                    viewBtn.setOnAction(e ->
-                            showResultDetailsWindow(student, r)
-                    );
+            progressBar.setProgress(total == 0 ? 0 : (double) done / total);
 
-                    HBox row = new HBox(10, line, viewBtn);
-                    row.setAlignment(Pos.CENTER_LEFT);
+            String eta = "";
+            if (discoveryDone.get() && rate > 0)
+                eta = " · ETA " + formatDuration((long) ((total - done) / rate));
+            else if (!discoveryDone.get())
+                eta = " · still discovering";
 
-                    studentBox.getChildren().add(row);
-                }
-            }
+            progressLabel.setText(String.format("%d / %d tests · %.1f tests/sec%s",
+                    done, total, rate, eta));
 
-            content.getChildren().add(studentBox);
-            content.getChildren().add(new Separator());
-        }
+            // streamed rows are sorted here, once per tick
+            report.applyPendingSort();
+        };
 
-        ScrollPane scroll = new ScrollPane(content);
-        scroll.setFitToWidth(true);
+        // refresh a few times a second instead of once per event
+        Timeline ticker = new Timeline(new KeyFrame(Duration.millis(250), ev -> updateProgress.run()));
+        ticker.setCycleCount(Animation.INDEFINITE);
+        ticker.play();
 
         Button saveReportBtn = new Button("Save Class Report");
-        saveReportBtn.setOnAction(e -> saveClassReportToFile(stage, results));
+        saveReportBtn.setDisable(true);
 
         Button closeBtn = new Button("Close");
         closeBtn.setOnAction(e -> stage.close());
@@ -796,12 +831,125 @@ public class MainApp extends Application {
         HBox bottomRow = new HBox(10, saveReportBtn, closeBtn);
         bottomRow.setAlignment(Pos.CENTER_RIGHT);
 
-        VBox root = new VBox(10, header, scroll, bottomRow);
+        // filled in when the run ends (only if timing metrics were on)
+        TitledPane timingPane = new TitledPane();
+        timingPane.setText("Timing");
+        timingPane.setExpanded(false);
+        timingPane.setVisible(false);
+        timingPane.setManaged(false);
+
+        VBox root = new VBox(10, header, progressBar, progressLabel, report.getNode(), timingPane, bottomRow);
         root.setPadding(new Insets(15));
 
-        stage.setScene(new Scene(root, 650, 520));
+        stage.setScene(new Scene(root, 800, 600));
         stage.initOwner(owner);
         stage.show();
+
+        // V1 + V2 views come from a single execution pass
+        Task<ExecutionReport> task = new Task<>() {
+            @Override
+            protected ExecutionReport call() {
+                return coordinator.runTestSuite(suiteName, folderPath, listener);
+            }
+        };
+
+        task.setOnSucceeded(ev -> {
+            ticker.stop();
+            updateProgress.run();
+            progressBar.setProgress(1);
+
+            ExecutionReport execution = task.getValue();
+            List<Result> results = execution.getResults();
+
+            // store V2 result for saving later
+            lastExecutedSuiteResult = execution.getSuiteResult();
+            lastExecutedMetrics = execution.getMetrics();
+            if (lastExecutedSuiteResult != null) {
+                btnSaveSuiteResult.setDisable(false);
+            }
+
+            if (lastExecutedMetrics != null) {
+                timingPane.setContent(buildTimingSummary(lastExecutedMetrics));
+                timingPane.setVisible(true);
+                timingPane.setManaged(true);
+            }
+
+            if (results == null || results.isEmpty()) {
+                stage.close();
+                new Alert(Alert.AlertType.INFORMATION,
+                        "Execution finished, but no results were produced."
+                ).showAndWait();
+                return;
+            }
+
+            // final report in a stable order (live rows arrive in completion order)
+            report.setResults(results);
+
+            saveReportBtn.setOnAction(e -> saveClassReportToFile(stage, results));
+            saveReportBtn.setDisable(false);
+        });
+
+        task.setOnFailed(ev -> {
+            ticker.stop();
+            report.applyPendingSort();
+            Throwable ex = task.getException();
+            progressLabel.setText("Execution failed.");
+            new Alert(Alert.AlertType.ERROR,
+                    "Execution failed: " + (ex == null ? "" : ex.getMessage())
+            ).showAndWait();
+            if (ex != null) ex.printStackTrace();
+        });
+
+        Thread runner = new Thread(task, "grading-run");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    // Phase table and slowest students of one run
+    private static Node buildTimingSummary(GradingMetrics metrics) {
+        GridPane grid = new GridPane();
+        grid.setHgap(18);
+        grid.setVgap(4);
+
+        String[] headers = {"Phase", "Count", "Mean", "p50", "p95", "Max"};
+        for (int c = 0; c < headers.length; c++) {
+            Label h = new Label(headers[c]);
+            h.setStyle("-fx-font-weight: bold;");
+            grid.add(h, c, 0);
+        }
+
+        int row = 1;
+        for (GradingMetrics.Phase phase : GradingMetrics.Phase.values()) {
+            LatencyHistogram h = metrics.getPhase(phase);
+            if (h.getCount() == 0) continue;
+            grid.addRow(row++,
+                    new Label(phase.key()),
+                    new Label(String.valueOf(h.getCount())),
+                    new Label(GradingMetrics.formatNanos((long) h.getMeanNanos())),
+                    new Label(GradingMetrics.formatNanos(h.percentileNanos(0.50))),
+                    new Label(GradingMetrics.formatNanos(h.percentileNanos(0.95))),
+                    new Label(GradingMetrics.formatNanos(h.getMaxNanos())));
+        }
+
+        Label discovery = new Label(String.format("Wall time %s · discovery %s (%s waiting on compile queue)",
+                GradingMetrics.formatNanos(metrics.getWallNanos()),
+                GradingMetrics.formatNanos(Math.max(0, metrics.getDiscoveryNanos())),
+                GradingMetrics.formatNanos(metrics.getDiscoveryWaitNanos())));
+
+        StringBuilder slowest = new StringBuilder("Slowest students:");
+        for (GradingMetrics.StudentRow s : metrics.slowestStudents(5))
+            slowest.append(String.format("%n  %-24s %s (compile %s, run %s)", s.getStudent(),
+                    GradingMetrics.formatNanos(s.getTotalNanos()),
+                    GradingMetrics.formatNanos(Math.max(0, s.getCompileNanos())),
+                    GradingMetrics.formatNanos(s.getRunNanos())));
+        Label slowestLabel = new Label(slowest.toString());
+        slowestLabel.setStyle("-fx-font-family: monospace;");
+
+        return new VBox(8, discovery, grid, slowestLabel);
+    }
+
+    private static String formatDuration(long seconds) {
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
     }
 
     // Save whole class report as formatted text
@@ -840,7 +988,7 @@ public class MainApp extends Application {
                     out.println();
                 } else {
                     for (Result r : studentResults) {
-                        String status = r.isPassed() ? "PASS" : "FAIL";
+                        String status = r.getStatusLabel();
                         out.printf("%s ............ %s%n", r.getTestCaseTitle(), status);
 
                         if (!r.isPassed()) {
@@ -848,7 +996,7 @@ public class MainApp extends Application {
                             out.println(r.getExpected());
                             out.println();
                             out.println("Actual Output:");
-                            out.println(r.getActual());
+                            out.println(actualText(r));
                             out.println();
                         }
                     }
@@ -891,7 +1039,7 @@ public class MainApp extends Application {
             root.getChildren().addAll(status, area);
 
         } else {
-            Label status = new Label("Status: " + (result.isPassed() ? "PASS" : "FAIL"));
+            Label status = new Label("Status: " + result.getStatusLabel());
             status.setStyle(result.isPassed()
                     ? "-fx-text-fill: green; -fx-font-weight: bold;"
                     : "-fx-text-fill: red; -fx-font-weight: bold;");
@@ -901,11 +1049,18 @@ public class MainApp extends Application {
             expectedArea.setEditable(false);
 
             Label actualLabel = new Label("Actual Output:");
-            TextArea actualArea = new TextArea(result.getActual());
+            TextArea actualArea = new TextArea(actualText(result));
             actualArea.setEditable(false);
 
+            // what this execution cost (not measured for carried-over / cached outcomes)
+            Label usageLabel = new Label("Resources: " + result.getUsage().format());
+            usageLabel.setWrapText(true);
+            usageLabel.setTooltip(new Tooltip("CPU time of a forked run is sampled while it runs, so it is a "
+                    + "lower bound; \"not sampled\" means the program exited before the first sample."));
+
             root.getChildren().addAll(
                     status,
+                    usageLabel,
                     expectedLabel, expectedArea,
                     actualLabel, actualArea
             );
@@ -921,7 +1076,7 @@ public class MainApp extends Application {
         row.setAlignment(Pos.CENTER_LEFT);
         root.getChildren().add(row);
 
-        stage.setScene(new Scene(root, 430, 460));
+        stage.setScene(new Scene(root, 430, 500));
         stage.show();
     }
 
@@ -942,13 +1097,14 @@ public class MainApp extends Application {
                 out.println("COMPILATION ERROR:");
                 out.println(result.getCompileError());
             } else {
-                out.println("Status: " + (result.isPassed() ? "PASS" : "FAIL"));
+                out.println("Status: " + result.getStatusLabel());
+                out.println("Resources: " + result.getUsage().format());
                 out.println();
                 out.println("Expected Output:");
                 out.println(result.getExpected());
                 out.println();
                 out.println("Actual Output:");
-                out.println(result.getActual());
+                out.println(actualText(result));
             }
 
             new Alert(Alert.AlertType.INFORMATION,
@@ -963,104 +1119,162 @@ public class MainApp extends Application {
     }
 
     // ============= COMPARE RESULTS (V2) =============
+    // Any number of result files, oldest round first
     private void showCompareResultsPopup(Stage owner) {
 
         Stage popup = new Stage();
         popup.setTitle("Compare Results");
 
-        Label l1 = new Label("Result File 1:");
-        TextField f1 = new TextField();
-        Button b1 = new Button("Browse...");
-        b1.setOnAction(e -> {
+        Label label = new Label("Result files (oldest round first):");
+        ListView<String> files = new ListView<>();
+        files.setPrefHeight(160);
+
+        Button addBtn = new Button("Add...");
+        addBtn.setOnAction(e -> {
             FileChooser fc = new FileChooser();
-            File file = fc.showOpenDialog(popup);
-            if (file != null) f1.setText(file.getAbsolutePath());
+            List<File> chosen = fc.showOpenMultipleDialog(popup);
+            if (chosen != null)
+                for (File f : chosen) files.getItems().add(f.getAbsolutePath());
         });
 
-        Label l2 = new Label("Result File 2:");
-        TextField f2 = new TextField();
-        Button b2 = new Button("Browse...");
-        b2.setOnAction(e -> {
-            FileChooser fc = new FileChooser();
-            File file = fc.showOpenDialog(popup);
-            if (file != null) f2.setText(file.getAbsolutePath());
+        Button removeBtn = new Button("Remove");
+        removeBtn.setOnAction(e -> {
+            int idx = files.getSelectionModel().getSelectedIndex();
+            if (idx >= 0) files.getItems().remove(idx);
+        });
+
+        Button upBtn = new Button("Move Up");
+        upBtn.setOnAction(e -> {
+            int idx = files.getSelectionModel().getSelectedIndex();
+            if (idx <= 0) return;
+            files.getItems().add(idx - 1, files.getItems().remove(idx));
+            files.getSelectionModel().select(idx - 1);
         });
 
         Button compareBtn = new Button("Compare");
         Button cancelBtn = new Button("Cancel");
 
         compareBtn.setOnAction(e -> {
-            String file1 = f1.getText().trim();
-            String file2 = f2.getText().trim();
-
-            if (file1.isEmpty() || file2.isEmpty()) {
-                new Alert(Alert.AlertType.ERROR,
-                        "Select both files."
-                ).showAndWait();
-                return;
-            }
+            List<String> paths = new ArrayList<>(files.getItems());
 
-            List<ComparisonResult> results = coordinator.compareResults(file1, file2);
-            if (results == null) {
+            if (paths.size() < 2) {
                 new Alert(Alert.AlertType.ERROR,
-                        "Comparison failed."
+                        "Select at least two files."
                 ).showAndWait();
                 return;
             }
 
             popup.close();
-            showComparisonResultsWindow(owner, results);
+            showComparisonResultsWindow(owner, paths);
         });
 
         cancelBtn.setOnAction(e -> popup.close());
 
         VBox root = new VBox(12,
-                l1, new HBox(10, f1, b1),
-                l2, new HBox(10, f2, b2),
+                label, files,
+                new HBox(10, addBtn, removeBtn, upBtn),
                 new HBox(10, compareBtn, cancelBtn)
         );
         root.setPadding(new Insets(20));
 
-        popup.setScene(new Scene(root, 550, 280));
+        popup.setScene(new Scene(root, 550, 330));
         popup.initOwner(owner);
         popup.show();
     }
 
-    private void showComparisonResultsWindow(Stage owner, List<ComparisonResult> results) {
+    // One row per student: the rate of every round, the change in passed
+    // tests from the round before, and the net change. Opens once every
+    // file's header is read; rows stream in as the merge runs.
+    private void showComparisonResultsWindow(Stage owner, List<String> paths) {
+
+        int rounds = paths.size();
 
         Stage stage = new Stage();
         stage.setTitle("Comparison Results");
+        stage.initOwner(owner);
 
-        TextArea area = new TextArea();
-        area.setEditable(false);
-        area.setStyle("-fx-font-family: Consolas; -fx-font-size: 14;");
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("Student            Submission1        Submission2\n");
-        sb.append("---------------------------------------------------------\n");
+        TableView<StudentTrend> table = new TableView<>();
+        table.setStyle("-fx-font-family: Consolas; -fx-font-size: 14;");
+
+        TableColumn<StudentTrend, String> nameCol = new TableColumn<>("Student");
+        nameCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getStudentName()));
+        nameCol.setPrefWidth(160);
+        table.getColumns().add(nameCol);
+
+        for (int r = 0; r < rounds; r++) {
+            int round = r;
+            TableColumn<StudentTrend, String> rateCol = new TableColumn<>("Submission" + (round + 1));
+            rateCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(c.getValue().getRate(round)));
+            table.getColumns().add(rateCol);
+
+            if (round > 0) {
+                TableColumn<StudentTrend, String> deltaCol = new TableColumn<>("\u0394");
+                deltaCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(deltaText(c.getValue().getDelta(round))));
+                deltaCol.setPrefWidth(50);
+                table.getColumns().add(deltaCol);
+            }
+        }
 
-        for (ComparisonResult r : results) {
-            sb.append(String.format("%-18s %-18s %s\n",
-                    r.getStudentName(),
-                    r.getSubmission1Rate(),
-                    r.getSubmission2Rate()
-            ));
+        if (rounds > 2) {
+            TableColumn<StudentTrend, String> netCol = new TableColumn<>("Net");
+            netCol.setCellValueFactory(c -> new ReadOnlyStringWrapper(deltaText(c.getValue().getNetDelta())));
+            table.getColumns().add(netCol);
         }
+        VBox.setVgrow(table, Priority.ALWAYS);
 
-        area.setText(sb.toString());
+        Label summary = new Label();
+        ProgressBar bar = new ProgressBar(0);
+        bar.setMaxWidth(Double.MAX_VALUE);
+        Label status = new Label("Merging…");
+        Button cancelBtn = new Button("Cancel");
 
-        VBox root = new VBox(10,
-                new Label("Comparison Summary:"),
-                area
-        );
+        RowFeed<StudentTrend> feed = new RowFeed<>(table.getItems(), bar, status, (suite, total) -> {
+            summary.setText("Comparison Summary (" + suite + ", " + rounds + " rounds):");
+            stage.show();
+        });
+        CompletableFuture<Integer> compare = coordinator.compareResultsAsync(paths, feed);
+
+        compare.whenComplete((students, ex) -> Platform.runLater(() -> {
+            feed.finish();
+            cancelBtn.setText("Close");
+            if (ex == null) {
+                status.setText(students + " students compared.");
+            } else if (compare.isCancelled()) {
+                status.setText("Cancelled after " + table.getItems().size() + " students.");
+            } else if (!feed.isOpened()) {
+                new Alert(Alert.AlertType.ERROR,
+                        "Comparison failed: " + rootMessage(ex)
+                ).showAndWait();
+            } else {
+                status.setText("Failed: " + rootMessage(ex));
+            }
+        }));
+
+        cancelBtn.setOnAction(e -> {
+            if (compare.isDone()) stage.close();
+            else compare.cancel(true);
+        });
+        stage.setOnHidden(e -> compare.cancel(true));
+
+        VBox root = new VBox(10, summary, table, bar, new HBox(10, status), cancelBtn);
         root.setPadding(new Insets(15));
 
-        stage.setScene(new Scene(root, 600, 400));
-        stage.initOwner(owner);
-        stage.show();
+        stage.setScene(new Scene(root, Math.min(1200, 260 + rounds * 170), 500));
+    }
+
+    private static String deltaText(Integer delta) {
+        if (delta == null) return "";
+        return delta > 0 ? "+" + delta : String.valueOf(delta);
     }
 
     // ============= UTIL =============
+    // Carried-over results (incremental regrade) have no captured output
+    static String actualText(Result r) {
+        return r.isCarriedOver()
+                ? "(not re-run: outcome carried over from the previous result)"
+                : r.getActual();
+    }
+
     private TestCaseView findTestCaseByTitle(String title) {
         for (TestCaseView tc : testCases)
             if (tc.title.equals(title))
@@ -1068,6 +1282,77 @@ public class MainApp extends Application {
         return null;
     }
 
+    private static String rootMessage(Throwable ex) {
+        while (ex.getCause() != null && ex instanceof CompletionException)
+            ex = ex.getCause();
+        return ex.getMessage() != null ? ex.getMessage() : ex.toString();
+    }
+
+    // Rows read on a background thread, moved into a table in batches on the
+    // FX thread (one runLater per row would flood the event queue)
+    private static class RowFeed<T> implements ResultStreamListener<T> {
+        private final ConcurrentLinkedQueue<T> pending = new ConcurrentLinkedQueue<>();
+        private final List<T> rows;
+        private final ProgressBar bar;
+        private final Label status;
+        private final BiConsumer<String, Long> onOpened;
+        private final Timeline ticker;
+        private volatile long done;
+        private volatile long total;
+        private boolean opened;   // FX thread only
+
+        RowFeed(List<T> rows, ProgressBar bar, Label status, BiConsumer<String, Long> onOpened) {
+            this.rows = rows;
+            this.bar = bar;
+            this.status = status;
+            this.onOpened = onOpened;
+            this.ticker = new Timeline(new KeyFrame(Duration.millis(100), e -> drain()));
+            this.ticker.setCycleCount(Animation.INDEFINITE);
+        }
+
+        @Override
+        public void opened(String suiteName, long total) {
+            this.total = total;
+            Platform.runLater(() -> {
+                opened = true;
+                onOpened.accept(suiteName, total);
+                ticker.play();
+            });
+        }
+
+        @Override
+        public void item(T item) {
+            pending.add(item);
+        }
+
+        @Override
+        public void progress(long done, long total) {
+            this.done = done;
+            this.total = total;
+        }
+
+        boolean isOpened() {
+            return opened;
+        }
+
+        // FX thread, once the future is done
+        void finish() {
+            ticker.stop();
+            if (opened) drain();
+        }
+
+        private void drain() {
+            List<T> batch = new ArrayList<>();
+            T next;
+            while ((next = pending.poll()) != null) batch.add(next);
+            if (!batch.isEmpty()) rows.addAll(batch);
+
+            long all = total;
+            bar.setProgress(all == 0 ? 1 : (double) done / all);
+            status.setText(done + " / " + all + " records read");
+        }
+    }
+
     private static class TestCaseView {
         private final String title;
         private final String input;
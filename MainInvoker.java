@@ -0,0 +1,322 @@
+/***********************************************
+ * MainInvoker.java
+ * Runs a student's main() inside the current JVM.
+ *
+ * - System.in / System.out / System.err are routed
+ *   per invocation (per thread), so several students
+ *   can run at the same time without mixing output.
+ * - System.exit() from student code is trapped and
+ *   reported as an exit code instead of killing the
+ *   grader.
+ * - Each invocation has a wall-clock timeout and a
+ *   cap on captured output (see RunLimits).
+ * - A run that times out (or floods) cannot be
+ *   stopped: its thread is interrupted and left
+ *   behind. Such threads are tracked; see
+ *   liveAbandonedThreads().
+ * - Wall time, CPU time of the invoking thread and
+ *   bytes written are recorded (ResourceUsage);
+ *   memory cannot be told apart inside a shared JVM.
+ *
+ * Trapping System.exit needs a SecurityManager; if the
+ * JVM refuses one (JDK 18+ without
+ * -Djava.security.manager=allow) install() returns false
+ * and callers must fall back to forking.
+ ***********************************************/
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.security.Permission;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class MainInvoker {
+
+    private static final InheritableThreadLocal<Streams> CURRENT = new InheritableThreadLocal<>();
+
+    private static Boolean installed;
+
+    // Student threads still running after their invocation was given up on
+    private static final Set<Thread> ABANDONED = ConcurrentHashMap.newKeySet();
+
+    // Past this many live abandoned threads, callers should stop running in-process
+    public static final int MAX_ABANDONED_THREADS = 8;
+
+    /**
+     * Route System streams through this class and trap System.exit.
+     * Safe to call repeatedly; returns false if in-process execution
+     * is not possible in this JVM.
+     */
+    @SuppressWarnings("removal")
+    public static synchronized boolean install() {
+        if (installed != null) return installed;
+
+        try {
+            System.setSecurityManager(new ExitGuard());
+        } catch (UnsupportedOperationException | SecurityException e) {
+            System.out.println("[MainInvoker] Cannot trap System.exit here: " + e.getMessage());
+            installed = false;
+            return false;
+        }
+
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        InputStream in = System.in;
+        System.setOut(new PrintStream(new RoutedOutput(out, false), true));
+        System.setErr(new PrintStream(new RoutedOutput(err, true), true));
+        System.setIn(new RoutedInput(in));
+
+        installed = true;
+        return true;
+    }
+
+    /**
+     * Invoke mainClass.main(new String[0]) from the given loader with
+     * input (plus a newline, like the forked runner) on stdin.
+     * Stops waiting once the timeout passes or the output limit is hit.
+     */
+    public static RunOutcome invoke(ClassLoader loader, String mainClass,
+                                    String input, RunLimits limits) {
+
+        if (!install())
+            throw new IllegalStateException("In-process execution is not available.");
+
+        Charset cs = Charset.defaultCharset();
+        byte[] stdin = (input == null ? "" : input + System.lineSeparator()).getBytes(cs);
+        CountDownLatch done = new CountDownLatch(1);
+        Streams streams = new Streams(new ByteArrayInputStream(stdin), limits.getOutputLimitBytes(), done);
+        AtomicReference<Integer> exitCode = new AtomicReference<>();
+        AtomicLong cpuNanos = new AtomicLong(-1);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        Thread t = new Thread(() -> {
+            CURRENT.set(streams);
+            try {
+                Class<?> c = Class.forName(mainClass, true, loader);
+                Method main = c.getMethod("main", String[].class);
+                main.setAccessible(true);  // student classes are often package-private
+                main.invoke(null, (Object) new String[0]);
+                exitCode.set(0);
+            } catch (InvocationTargetException | ExceptionInInitializerError e) {
+                exitCode.set(exitStatus(e.getCause(), streams));
+            } catch (Throwable e) {
+                exitCode.set(exitStatus(e, streams));
+            } finally {
+                CURRENT.remove();
+                cpuNanos.set(threadCpuNanos(threads, Thread.currentThread()));
+                done.countDown();
+            }
+        }, "in-process-" + mainClass);
+
+        t.setDaemon(true);
+        t.setContextClassLoader(loader);
+        long started = System.nanoTime();
+        t.start();
+
+        try {
+            done.await(limits.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long wallNanos = System.nanoTime() - started;
+
+        boolean running = t.isAlive() && exitCode.get() == null;
+        if (running) {
+            // still going (timeout or flooding): its CPU time so far
+            cpuNanos.compareAndSet(-1, threadCpuNanos(threads, t));
+            // cannot kill a thread safely; interrupt it and abandon it
+            t.interrupt();
+            ABANDONED.add(t);
+        }
+
+        RunStatus status = streams.overflow ? RunStatus.OUTPUT_LIMIT
+                : running ? RunStatus.TIMEOUT
+                : RunStatus.COMPLETED;
+
+        RunOutcome outcome = new RunOutcome(status,
+                status == RunStatus.COMPLETED ? exitCode.get() : null,
+                streams.out.toString(cs),
+                streams.err.toString(cs));
+        outcome.setPid(ProcessHandle.current().pid());
+        outcome.setUsage(new ResourceUsage(wallNanos, cpuNanos.get(), -1,
+                streams.out.received(), streams.err.received()));
+        return outcome;
+    }
+
+    /** Abandoned student threads that are still alive (e.g. stuck in while (true)). */
+    public static int liveAbandonedThreads() {
+        ABANDONED.removeIf(t -> !t.isAlive());
+        return ABANDONED.size();
+    }
+
+    // user + sys CPU time of a thread, -1 if the JVM does not measure it
+    private static long threadCpuNanos(ThreadMXBean threads, Thread t) {
+        try {
+            return threads.isThreadCpuTimeSupported() ? threads.getThreadCpuTime(t.getId()) : -1;
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    // Exit code the java launcher would report; uncaught exceptions go to stderr
+    private static int exitStatus(Throwable t, Streams streams) {
+        if (t instanceof ExitTrappedException)
+            return ((ExitTrappedException) t).status;
+
+        PrintStream err = new PrintStream(streams.err, true);
+        err.print("Exception in thread \"main\" ");
+        t.printStackTrace(err);
+        return 1;
+    }
+
+    // ------------ STREAM ROUTING --------------
+    private static class Streams {
+        final InputStream in;
+        final BoundedBuffer out;
+        final BoundedBuffer err;
+        volatile boolean overflow;
+
+        Streams(InputStream in, int limit, CountDownLatch done) {
+            this.in = in;
+            this.out = new BoundedBuffer(this, limit, done);
+            this.err = new BoundedBuffer(this, limit, done);
+        }
+    }
+
+    // Keeps the first `limit` bytes; past that, flags overflow and stops the wait
+    private static class BoundedBuffer extends ByteArrayOutputStream {
+        private final Streams owner;
+        private final int limit;
+        private final CountDownLatch done;
+        private long received;   // bytes written, kept or not
+
+        BoundedBuffer(Streams owner, int limit, CountDownLatch done) {
+            this.owner = owner;
+            this.limit = limit;
+            this.done = done;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            received += len;
+            int room = limit - count;
+            if (len > room) {
+                super.write(b, off, Math.max(0, room));
+                owner.overflow = true;
+                done.countDown();
+                return;
+            }
+            super.write(b, off, len);
+        }
+
+        synchronized long received() {
+            return received;
+        }
+    }
+
+    private static class RoutedOutput extends OutputStream {
+        private final OutputStream fallback;
+        private final boolean isErr;
+
+        RoutedOutput(OutputStream fallback, boolean isErr) {
+            this.fallback = fallback;
+            this.isErr = isErr;
+        }
+
+        private OutputStream target() {
+            Streams s = CURRENT.get();
+            if (s == null) return fallback;
+            return isErr ? s.err : s.out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+    }
+
+    private static class RoutedInput extends InputStream {
+        private final InputStream fallback;
+
+        RoutedInput(InputStream fallback) {
+            this.fallback = fallback;
+        }
+
+        private InputStream target() {
+            Streams s = CURRENT.get();
+            return s == null ? fallback : s.in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return target().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return target().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return target().available();
+        }
+    }
+
+    // ------------ SYSTEM.EXIT GUARD --------------
+    @SuppressWarnings("removal")
+    private static class ExitGuard extends SecurityManager {
+        @Override
+        public void checkPermission(Permission perm) {
+            // allow everything; we only care about exit
+        }
+
+        @Override
+        public void checkPermission(Permission perm, Object context) {
+        }
+
+        @Override
+        public void checkExit(int status) {
+            if (CURRENT.get() != null) throw new ExitTrappedException(status);
+        }
+    }
+
+    private static class ExitTrappedException extends SecurityException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ExitTrappedException(int status) {
+            super("System.exit(" + status + ") trapped");
+            this.status = status;
+        }
+    }
+}
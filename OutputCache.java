@@ -0,0 +1,265 @@
+/***********************************************
+ * OutputCache.java
+ * Opt-in on-disk memoization of test runs.
+ *
+ * Key: (submission content hash, test input, run
+ * limits). For a deterministic stdin/stdout program
+ * that fully determines the output, so an unchanged
+ * (submission, test case) pair is served from disk
+ * instead of being run again. The expected output
+ * is not part of the key: it is compared fresh on
+ * every run, so fixing an expected value never
+ * forces a re-run.
+ *
+ * Only COMPLETED and OUTPUT_LIMIT runs are cached;
+ * TIMEOUT and ERROR may depend on machine load.
+ *
+ * - enabled : off by default
+ * - bypass  : ignore cached entries (still refresh
+ *             them), for suspected nondeterminism
+ * - maxBytes: least recently used entries are evicted
+ *             once the cache grows past this size
+ ***********************************************/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class OutputCache {
+
+    private static final OutputCache SHARED = new OutputCache(
+            Paths.get(System.getProperty("user.home"), ".assignment-compiler", "output-cache"),
+            256L * 1024 * 1024);
+
+    private static final String FORMAT = "output-cache-v1";
+    private static final String SUFFIX = ".out";
+
+    private volatile Path directory;
+    private volatile long maxBytes;
+    private volatile boolean enabled = false;
+    private volatile boolean bypass = false;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // total size of entries on disk; -1 until first scanned
+    private final AtomicLong sizeOnDisk = new AtomicLong(-1);
+
+    public OutputCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    public static OutputCache shared() {
+        return SHARED;
+    }
+
+    // ------------ SETTINGS & COUNTERS --------------
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isBypass() {
+        return bypass;
+    }
+
+    public void setBypass(boolean bypass) {
+        this.bypass = bypass;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public synchronized void setDirectory(Path directory) {
+        this.directory = directory;
+        sizeOnDisk.set(-1);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes < 1) throw new IllegalArgumentException("Cache size must be positive.");
+        this.maxBytes = maxBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public String formatStats() {
+        return String.format("output cache: %d hits, %d misses", hits.get(), misses.get());
+    }
+
+    // ------------ KEY --------------
+    public static String key(String submissionHash, String input, RunLimits limits) {
+        return ContentHash.of(FORMAT, submissionHash, input,
+                String.valueOf(limits.getTimeoutMillis()),
+                String.valueOf(limits.getOutputLimitBytes()));
+    }
+
+    /** True if results for this submission may be read or written at all. */
+    public boolean usableFor(String submissionHash) {
+        return enabled && submissionHash != null;
+    }
+
+    // ------------ LOOKUP / STORE --------------
+    /** Cached outcome, or null on a miss / when disabled or bypassed. */
+    public RunOutcome lookup(String key) {
+        if (!enabled || bypass) return null;
+
+        Path file = entryPath(key);
+        if (!Files.isRegularFile(file)) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            RunStatus status = RunStatus.valueOf(in.readUTF());
+            int exit = in.readInt();
+            String stdout = RunnerWorker.readString(in);
+            String stderr = RunnerWorker.readString(in);
+
+            // mark as recently used for LRU eviction
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return new RunOutcome(status, exit < 0 ? null : exit, stdout, stderr);
+
+        } catch (IOException | IllegalArgumentException e) {
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    public void store(String key, RunOutcome outcome) {
+        if (!enabled) return;
+        if (outcome.getStatus() != RunStatus.COMPLETED
+                && outcome.getStatus() != RunStatus.OUTPUT_LIMIT) return;
+
+        Path file = entryPath(key);
+        Path tmp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            tmp = Files.createTempFile(file.getParent(), key, ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeUTF(outcome.getStatus().name());
+                out.writeInt(outcome.getExitCode() == null ? -1 : outcome.getExitCode());
+                RunnerWorker.writeString(out, outcome.getStdout());
+                RunnerWorker.writeString(out, outcome.getStderr());
+            }
+
+            long previous = Files.isRegularFile(file) ? Files.size(file) : 0;
+            long size = Files.size(tmp);
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+
+            if (sizeOnDisk.get() < 0) scanSize();
+            if (sizeOnDisk.addAndGet(size - previous) > maxBytes) evict();
+
+        } catch (IOException e) {
+            System.out.println("[OutputCache] Could not store entry: " + e.getMessage());
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // leftover temp file; harmless
+                }
+            }
+        }
+    }
+
+    /** Delete every entry. */
+    public synchronized void clear() throws IOException {
+        for (Path p : listEntries()) Files.deleteIfExists(p);
+        sizeOnDisk.set(0);
+    }
+
+    // ------------ EVICTION --------------
+    // Drop least recently used entries until the cache is back under 90% of maxBytes
+    private synchronized void evict() throws IOException {
+        if (sizeOnDisk.get() <= maxBytes) return;
+
+        List<Path> entries = listEntries();
+        entries.sort(Comparator.comparing(OutputCache::lastModified));
+
+        long target = maxBytes / 10 * 9;
+        long size = 0;
+        for (Path p : entries) size += sizeOf(p);
+
+        for (Path p : entries) {
+            if (size <= target) break;
+            long s = sizeOf(p);
+            if (Files.deleteIfExists(p)) size -= s;
+        }
+        sizeOnDisk.set(size);
+    }
+
+    private synchronized void scanSize() throws IOException {
+        if (sizeOnDisk.get() >= 0) return;
+        long size = 0;
+        for (Path p : listEntries()) size += sizeOf(p);
+        sizeOnDisk.set(size);
+    }
+
+    private List<Path> listEntries() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return entries;
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            files.filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+                 .forEach(entries::add);
+        }
+        return entries;
+    }
+
+    // two-level layout keeps directories small: <ab>/<abcdef...>.out
+    private Path entryPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+
+    private static FileTime lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static long sizeOf(Path p) {
+        try {
+            return Files.size(p);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
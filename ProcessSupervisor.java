@@ -0,0 +1,220 @@
+/***********************************************
+ * ProcessSupervisor.java
+ * Runs one child process safely:
+ * - stdin is written on its own thread
+ * - stdout and stderr are drained concurrently
+ *   into bounded buffers, so a chatty program can
+ *   never fill a pipe and deadlock the grader
+ * - a wall-clock timeout is enforced
+ * - on timeout or output overflow the whole process
+ *   tree is killed through ProcessHandle
+ * - spawn time, time to first output, the pid and
+ *   the resources used are noted on the outcome:
+ *   CPU time (ProcessHandle.Info) and peak RSS
+ *   (/proc/<pid>/status) are sampled while the
+ *   child runs. The JDK reaps the child before
+ *   waitFor returns, so there is no sample at
+ *   exit: CPU time is a lower bound (the last
+ *   slice before exit is not seen) and stays -1
+ *   for a child that exits before the first
+ *   sample. Slices start at 1 ms and double up to
+ *   SAMPLE_MILLIS so short runs are still seen.
+ ***********************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ProcessSupervisor {
+
+    // Shared daemon threads for the pipe pumps (3 per running child)
+    private static final ExecutorService PUMPS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "process-pump");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // How often CPU time and memory of a running child are sampled (at most)
+    private static final long SAMPLE_MILLIS = 10;
+    private static final boolean PROC_STATUS = Files.isReadable(Paths.get("/proc/self/status"));
+
+    /**
+     * Start the process, feed it stdin, wait for it within the limits and
+     * return its output. Never throws for misbehaving programs; failure to
+     * start is reported as RunStatus.ERROR.
+     */
+    public static RunOutcome run(ProcessBuilder pb, byte[] stdin, RunLimits limits) {
+
+        Process p;
+        long started = System.nanoTime();
+        try {
+            p = pb.start();
+        } catch (IOException e) {
+            return RunOutcome.error("Could not start process: " + e.getMessage());
+        }
+        long spawnNanos = System.nanoTime() - started;
+
+        AtomicBoolean overflow = new AtomicBoolean(false);
+        BoundedSink out = new BoundedSink(limits.getOutputLimitBytes(), overflow, p);
+        BoundedSink err = new BoundedSink(limits.getOutputLimitBytes(), overflow, p);
+
+        PUMPS.submit(() -> {
+            try (OutputStream in = p.getOutputStream()) {
+                if (stdin != null) in.write(stdin);
+            } catch (IOException ignored) {
+                // program exited without reading all of its input
+            }
+        });
+        Future<Long> outPump = PUMPS.submit(() -> pump(p.getInputStream(), out));
+        Future<Long> errPump = PUMPS.submit(() -> pump(p.getErrorStream(), err));
+
+        // wait in short slices and sample the child in between; waitFor
+        // still returns the moment it exits
+        Sampler sampler = new Sampler(p);
+        long deadline = started + spawnNanos + TimeUnit.MILLISECONDS.toNanos(limits.getTimeoutMillis());
+        long slice = TimeUnit.MILLISECONDS.toNanos(1);
+        boolean finished = false;
+        try {
+            for (long left = deadline - System.nanoTime(); left > 0; left = deadline - System.nanoTime()) {
+                if (p.waitFor(Math.min(left, slice), TimeUnit.NANOSECONDS)) {
+                    finished = true;
+                    break;
+                }
+                sampler.sample();
+                slice = Math.min(slice * 2, TimeUnit.MILLISECONDS.toNanos(SAMPLE_MILLIS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long wallNanos = System.nanoTime() - started;
+
+        if (!finished) killTree(p);
+
+        // the pumps end as soon as the pipes close
+        long firstOutput = awaitQuietly(outPump);
+        awaitQuietly(errPump);
+
+        Charset cs = Charset.defaultCharset();
+        RunStatus status = overflow.get() ? RunStatus.OUTPUT_LIMIT
+                : !finished ? RunStatus.TIMEOUT
+                : RunStatus.COMPLETED;
+        Integer exit = (status == RunStatus.COMPLETED) ? p.exitValue() : null;
+
+        RunOutcome outcome = new RunOutcome(status, exit, out.toString(cs), err.toString(cs));
+        outcome.setTimings(spawnNanos, firstOutput < 0 ? -1 : firstOutput - started);
+        outcome.setPid(p.pid());
+        outcome.setUsage(new ResourceUsage(wallNanos, sampler.cpuNanos, sampler.peakRssKb,
+                out.received(), err.received()));
+        return outcome;
+    }
+
+    /** Forcibly kill a process and everything it started. */
+    public static void killTree(Process p) {
+        p.descendants().forEach(ProcessHandle::destroyForcibly);
+        p.destroyForcibly();
+        try {
+            p.waitFor(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Returns System.nanoTime() of the first bytes read, or -1 if there were none
+    private static long pump(InputStream in, OutputStream sink) {
+        byte[] buf = new byte[8192];
+        long first = -1;
+        try (in) {
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                if (first < 0 && n > 0) first = System.nanoTime();
+                sink.write(buf, 0, n);
+            }
+        } catch (IOException ignored) {
+            // pipe closed because the process was killed
+        }
+        return first;
+    }
+
+    private static long awaitQuietly(Future<Long> f) {
+        try {
+            return f.get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            f.cancel(true);
+            return -1;
+        }
+    }
+
+    // Highest CPU time and memory high-water mark seen while the child ran
+    private static class Sampler {
+        private final ProcessHandle handle;
+        private final Path status;
+        long cpuNanos = -1;
+        long peakRssKb = -1;
+
+        Sampler(Process p) {
+            this.handle = p.toHandle();
+            this.status = PROC_STATUS ? Paths.get("/proc", String.valueOf(p.pid()), "status") : null;
+        }
+
+        void sample() {
+            handle.info().totalCpuDuration()
+                    .ifPresent(d -> cpuNanos = Math.max(cpuNanos, d.toNanos()));
+            if (status != null) peakRssKb = Math.max(peakRssKb, highWaterMarkKb());
+        }
+
+        // "VmHWM:     38112 kB" -> 38112; -1 if the process is already gone
+        private long highWaterMarkKb() {
+            try {
+                for (String line : Files.readAllLines(status)) {
+                    if (line.startsWith("VmHWM:")) {
+                        String value = line.substring(6).trim();
+                        return Long.parseLong(value.substring(0, value.indexOf(' ')));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // exited between two samples
+            }
+            return -1;
+        }
+    }
+
+    // Keeps the first `limit` bytes; past that, flags overflow and kills the tree
+    private static class BoundedSink extends ByteArrayOutputStream {
+        private final int limit;
+        private final AtomicBoolean overflow;
+        private final Process process;
+        private long received;   // bytes written to the sink, kept or not
+
+        BoundedSink(int limit, AtomicBoolean overflow, Process process) {
+            this.limit = limit;
+            this.overflow = overflow;
+            this.process = process;
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            received += len;
+            int room = limit - count;
+            if (len > room) {
+                super.write(b, off, Math.max(0, room));
+                if (overflow.compareAndSet(false, true)) killTree(process);
+                return;
+            }
+            super.write(b, off, len);
+        }
+
+        synchronized long received() {
+            return received;
+        }
+    }
+}
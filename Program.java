@@ -1,105 +1,331 @@
-import java.io.*;
-
-public class Program {
-
-    private String programName;      // student folder name
-    private String folderPath;       // folder containing all .java files
-    private String mainJavaFile;     // full path to the file containing main()
-    private String mainClassName;    // class name extracted from mainJavaFile
-
-    public Program(String programName, String folderPath, String mainJavaFile) {
-        this.programName = programName;
-        this.folderPath = folderPath;
-        this.mainJavaFile = mainJavaFile;
-        this.mainClassName = extractClassName(mainJavaFile);
-    }
-
-    public String getProgramName() {
-        return programName;
-    }
-
-    public String getMainClassName() {
-        return mainClassName;
-    }
-
-    /**
-     * Extract class name from a file name.
-     * Example: /Users/.../MainProgram.java → "MainProgram"
-     */
-    private String extractClassName(String filePath) {
-        if (filePath == null) return null;
-
-        File f = new File(filePath);
-        String name = f.getName(); // e.g., MainProgram.java
-
-        if (name.endsWith(".java"))
-            return name.substring(0, name.length() - 5);
-
-        return name;
-    }
-
-
-    // ================================================================
-    //                       COMPILE STUDENT CODE
-    // ================================================================
-    public String compileAndReturnErrors() {
-
-        try {
-            // Compile ALL Java files inside the folder
-            Process p = Runtime.getRuntime().exec(
-                    "javac *.java",
-                    null,
-                    new File(folderPath)
-            );
-
-            p.waitFor();
-
-            BufferedReader err =
-                    new BufferedReader(new InputStreamReader(p.getErrorStream()));
-
-            String firstErrorLine = err.readLine();
-            if (firstErrorLine != null) {
-                return firstErrorLine;  // A compilation error occurred
-            }
-
-            return null; // No errors
-
-        } catch (Exception e) {
-            return "Unexpected compilation error.";
-        }
-    }
-
-
-    // ================================================================
-    //                        RUN STUDENT CODE
-    // ================================================================
-    public String run(String input) {
-        try {
-
-            // MUST USE THE MAIN CLASS NAME, NOT FOLDER NAME
-            Process p = Runtime.getRuntime().exec(
-                    "java " + mainClassName,
-                    null,
-                    new File(folderPath)
-            );
-
-            // Send input to the running program
-            PrintWriter pw = new PrintWriter(p.getOutputStream());
-            pw.println(input);
-            pw.flush();
-
-            // Read ONE line of output
-            BufferedReader in =
-                    new BufferedReader(new InputStreamReader(p.getInputStream()));
-
-            String out = in.readLine();
-
-            p.waitFor();
-
-            return (out == null ? "" : out.trim());
-
-        } catch (Exception e) {
-            return "";
-        }
-    }
-}
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class Program {
+
+    private String programName;      // student folder name
+    private String folderPath;       // folder containing all .java files
+    private String mainJavaFile;     // full path to the file containing main()
+    private String mainClassName;    // class name extracted from mainJavaFile
+    private CompilationResult lastCompilation;  // diagnostics + class files from last compile
+    private String submissionHash;              // CompileCache key of the sources
+    private volatile boolean leftThreadBehind;  // an in-process run of ours could not be stopped
+
+    // Limits for the javac fallback, and extra time allowed for a batch JVM to start
+    private static final RunLimits COMPILE_LIMITS = new RunLimits(120_000, 1 << 20);
+    private static final long HARNESS_STARTUP_MS = 10_000;
+
+    private static final AtomicBoolean FORK_WARNING_SHOWN = new AtomicBoolean();
+
+    public Program(String programName, String folderPath, String mainJavaFile) {
+        this.programName = programName;
+        this.folderPath = folderPath;
+        this.mainJavaFile = mainJavaFile;
+        this.mainClassName = extractClassName(mainJavaFile);
+    }
+
+    public String getProgramName() {
+        return programName;
+    }
+
+    public String getMainClassName() {
+        return mainClassName;
+    }
+
+    /**
+     * Extract class name from a file name.
+     * Example: /Users/.../MainProgram.java → "MainProgram"
+     */
+    private String extractClassName(String filePath) {
+        if (filePath == null) return null;
+
+        File f = new File(filePath);
+        String name = f.getName(); // e.g., MainProgram.java
+
+        if (name.endsWith(".java"))
+            return name.substring(0, name.length() - 5);
+
+        return name;
+    }
+
+
+    // ================================================================
+    //                       COMPILE STUDENT CODE
+    // ================================================================
+    /**
+     * Compile all .java files in the folder with the shared in-process
+     * compiler (or take them from the CompileCache) and write the class
+     * files next to the sources.
+     * Returns the first error line (javac format), or null on success.
+     * Each call is recorded as a SubmissionCompile JFR event.
+     */
+    public String compileAndReturnErrors() {
+
+        SubmissionCompileEvent event = new SubmissionCompileEvent();
+        event.begin();
+        String error = compile(event);
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.student = programName;
+            event.submissionHash = submissionHash;
+            event.success = (error == null);
+            event.error = error;
+            event.commit();
+        }
+        return error;
+    }
+
+    private String compile(SubmissionCompileEvent event) {
+
+        try {
+            CompilationService service = CompilationService.shared();
+            if (!service.isAvailable()) {
+                event.compiler = "javac";
+                return compileWithJavac(event);
+            }
+            event.compiler = "in-process";
+
+            // unchanged submissions (regrades, later rounds) come from the cache
+            CompileCache cache = CompileCache.shared();
+            File folder = new File(folderPath);
+            submissionHash = CompileCache.submissionKey(folder);
+
+            CompilationResult result = cache.lookup(submissionHash);
+            event.cacheHit = (result != null);
+            if (result == null) {
+                result = service.compileFolder(folder);
+                cache.store(submissionHash, result);
+            }
+
+            lastCompilation = result;
+            if (!result.isSuccess())
+                return result.firstErrorLine();
+
+            writeClassFiles(result.getClassFiles());
+            return null; // No errors
+
+        } catch (Exception e) {
+            return "Unexpected compilation error.";
+        }
+    }
+
+    // Content hash of the sources from the last compile (null before compiling)
+    public String getSubmissionHash() {
+        return submissionHash;
+    }
+
+    public CompilationResult getLastCompilation() {
+        return lastCompilation;
+    }
+
+    private void writeClassFiles(Map<String, byte[]> classFiles) throws IOException {
+        for (Map.Entry<String, byte[]> e : classFiles.entrySet()) {
+            File out = new File(folderPath, e.getKey().replace('.', File.separatorChar) + ".class");
+            File parent = out.getParentFile();
+            if (parent != null) parent.mkdirs();
+            Files.write(out.toPath(), e.getValue());
+        }
+    }
+
+    // Fallback when running on a JRE without javax.tools
+    private String compileWithJavac(SubmissionCompileEvent event) {
+
+        File[] javaFiles = new File(folderPath).listFiles((dir, name) -> name.endsWith(".java"));
+        if (javaFiles == null || javaFiles.length == 0)
+            return "No Java files found.";
+
+        List<String> cmd = new ArrayList<>();
+        cmd.add("javac");
+        for (File f : javaFiles) cmd.add(f.getName());
+
+        // Compile ALL Java files inside the folder
+        RunOutcome out = ProcessSupervisor.run(
+                new ProcessBuilder(cmd).directory(new File(folderPath)),
+                null,
+                COMPILE_LIMITS);
+        event.pid = out.getPid();
+        if (out.getExitCode() != null) event.exitCode = out.getExitCode();
+
+        if (out.getStatus() == RunStatus.TIMEOUT) return "Compilation timed out.";
+        if (out.getStatus() == RunStatus.ERROR) return "Unexpected compilation error.";
+
+        String firstErrorLine = new RunOutcome(RunStatus.COMPLETED, null, out.getStderr(), "").firstLine();
+        if (out.getExitCode() != null && out.getExitCode() != 0)
+            return firstErrorLine.isEmpty() ? "Compilation failed." : firstErrorLine;
+
+        return null; // No errors
+    }
+
+
+    // ================================================================
+    //                        RUN STUDENT CODE
+    // ================================================================
+    /**
+     * Run the program once in a new "java <MainClass>" process and return
+     * the first line of output, trimmed ("" if there was none).
+     */
+    public String run(String input) {
+        return execute(input, RunLimits.DEFAULT).firstLine();
+    }
+
+    /**
+     * Run the program once in a new JVM under the given limits.
+     * stdout/stderr are drained concurrently; on timeout or output
+     * overflow the whole process tree is killed.
+     */
+    public RunOutcome execute(String input, RunLimits limits) {
+
+        // MUST USE THE MAIN CLASS NAME, NOT FOLDER NAME
+        ProcessBuilder pb = new ProcessBuilder(javaExecutable(), mainClassName)
+                .directory(new File(folderPath));
+
+        // Send input to the running program (same as PrintWriter.println)
+        byte[] stdin = (input + System.lineSeparator()).getBytes();
+
+        return ProcessSupervisor.run(pb, stdin, limits);
+    }
+
+    // ================================================================
+    //                  RUN STUDENT CODE (IN-PROCESS)
+    // ================================================================
+    /**
+     * Run main() inside this JVM through a fresh class loader, so static
+     * state never leaks between test cases.
+     * Falls back to execute(...) if this JVM cannot trap System.exit.
+     *
+     * A run cut short by a limit leaves its thread running in this JVM,
+     * so the student's remaining tests are forked instead; so is every
+     * run once MainInvoker.MAX_ABANDONED_THREADS such threads are alive.
+     */
+    public RunOutcome executeInProcess(String input, RunLimits limits) {
+        if (!MainInvoker.install() || leftThreadBehind)
+            return execute(input, limits);
+        if (MainInvoker.liveAbandonedThreads() >= MainInvoker.MAX_ABANDONED_THREADS) {
+            if (FORK_WARNING_SHOWN.compareAndSet(false, true))
+                System.out.println("[Program] " + MainInvoker.MAX_ABANDONED_THREADS
+                        + " in-process runs could not be stopped; forking from now on.");
+            return execute(input, limits);
+        }
+
+        Map<String, byte[]> classes = (lastCompilation == null)
+                ? Map.of()
+                : lastCompilation.getClassFiles();
+
+        ClassLoader loader = new SubmissionClassLoader(classes, new File(folderPath));
+        RunOutcome outcome = MainInvoker.invoke(loader, mainClassName, input, limits);
+        if (outcome.getStatus() == RunStatus.TIMEOUT || outcome.getStatus() == RunStatus.OUTPUT_LIMIT)
+            leftThreadBehind = true;
+        return outcome;
+    }
+
+    // ================================================================
+    //                  RUN STUDENT CODE (WORKER POOL)
+    // ================================================================
+    /** Run main() in one of the pool's pre-started worker JVMs. */
+    public RunOutcome executeInWorker(String input, WorkerPool pool, RunLimits limits) {
+        return pool.run(folderPath, mainClassName, input, limits);
+    }
+
+    // ================================================================
+    //                  RUN STUDENT CODE (BATCH, ONE JVM)
+    // ================================================================
+    /**
+     * Run every input in ONE new JVM (see BatchHarness) instead of one
+     * JVM per input. Each input still gets a fresh class loader and its
+     * own stdin/stdout, so the i-th outcome matches execute(inputs.get(i)).
+     *
+     * If the harness stops early (limit hit, crash) a new one is started
+     * for the inputs that are left.
+     */
+    public List<RunOutcome> executeBatch(List<String> inputs, RunLimits limits) {
+
+        List<RunOutcome> outcomes = new ArrayList<>();
+
+        while (outcomes.size() < inputs.size()) {
+            List<String> remaining = inputs.subList(outcomes.size(), inputs.size());
+            List<RunOutcome> batch = runHarness(remaining, limits);
+
+            if (batch.isEmpty()) {
+                // harness produced nothing at all; give up on this input
+                outcomes.add(RunOutcome.error("Batch harness produced no output."));
+            } else {
+                outcomes.addAll(batch);
+            }
+        }
+        return outcomes;
+    }
+
+    private List<RunOutcome> runHarness(List<String> inputs, RunLimits limits) {
+
+        String delimiter = "==BATCH-" + UUID.randomUUID() + "==";
+
+        ProcessBuilder pb = new ProcessBuilder(
+                javaExecutable(),
+                "-Djava.security.manager=allow",
+                "-cp", System.getProperty("java.class.path"),
+                "BatchHarness",
+                folderPath,
+                mainClassName,
+                String.valueOf(limits.getTimeoutMillis()),
+                String.valueOf(limits.getOutputLimitBytes()),
+                delimiter);
+
+        // harness reads all inputs before producing any output
+        ByteArrayOutputStream stdin = new ByteArrayOutputStream();
+        try (DataOutputStream toHarness = new DataOutputStream(stdin)) {
+            toHarness.writeInt(inputs.size());
+            for (String in : inputs)
+                RunnerWorker.writeString(toHarness, in);
+        } catch (IOException e) {
+            return new ArrayList<>();
+        }
+
+        // the harness enforces per-input limits; this only guards the whole JVM
+        RunLimits harnessLimits = new RunLimits(
+                limits.getTimeoutMillis() * inputs.size() + HARNESS_STARTUP_MS,
+                (int) Math.min(Integer.MAX_VALUE, (long) limits.getOutputLimitBytes() * inputs.size() + 4096L * inputs.size()));
+
+        RunOutcome harness = ProcessSupervisor.run(pb, stdin.toByteArray(), harnessLimits);
+        List<RunOutcome> outcomes = parseHarnessOutput(harness.getStdout(), delimiter);
+        for (RunOutcome o : outcomes) o.setPid(harness.getPid());
+        return outcomes;
+    }
+
+    private static List<RunOutcome> parseHarnessOutput(String stdout, String delimiter) {
+
+        List<RunOutcome> outcomes = new ArrayList<>();
+        String begin = delimiter + " BEGIN ";
+        String end = delimiter + " END ";
+        StringBuilder current = null;
+
+        for (String line : stdout.split("\n", -1)) {
+            if (line.startsWith(begin)) {
+                current = new StringBuilder();
+            } else if (line.startsWith(end) && current != null) {
+                // "<delimiter> END i <RunStatus> <exitCode> <wall> <cpu> <stdout bytes> <stderr bytes>"
+                String[] parts = line.substring(end.length()).trim().split(" ");
+                RunStatus status = RunStatus.valueOf(parts[1]);
+                int exit = Integer.parseInt(parts[2]);
+                RunOutcome outcome = new RunOutcome(status, exit < 0 ? null : exit, current.toString(), "");
+                if (parts.length >= 7)
+                    outcome.setUsage(new ResourceUsage(Long.parseLong(parts[3]), Long.parseLong(parts[4]), -1,
+                            Long.parseLong(parts[5]), Long.parseLong(parts[6])));
+                outcomes.add(outcome);
+                current = null;
+            } else if (current != null) {
+                current.append(line).append('\n');
+            }
+        }
+        return outcomes;
+    }
+
+    private static String javaExecutable() {
+        return System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    }
+}
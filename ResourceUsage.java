@@ -0,0 +1,124 @@
+/***********************************************
+ * ResourceUsage.java
+ * What one execution (or a student's executions,
+ * summed) cost: wall time, user+sys CPU time,
+ * peak resident memory and bytes written to
+ * stdout / stderr. Any figure is -1 if the
+ * execution mode could not measure it:
+ *
+ *   FORK         all of them; CPU from
+ *                ProcessHandle.Info, peak RSS from
+ *                /proc (Linux), both sampled while
+ *                the child runs, so CPU is a lower
+ *                bound and -1 if the child exited
+ *                before the first sample
+ *   WORKER_POOL  wall, CPU of the job's thread, bytes
+ *   IN_PROCESS   wall, CPU of the job's thread, bytes
+ *   BATCH        wall, CPU of the job's thread, bytes
+ *
+ * Peak RSS only exists for a process of its own;
+ * the other modes share a JVM between jobs.
+ * Immutable.
+ ***********************************************/
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+public class ResourceUsage {
+
+    public static final ResourceUsage UNKNOWN = new ResourceUsage(-1, -1, -1, -1, -1);
+
+    private final long wallNanos;
+    private final long cpuNanos;       // user + sys
+    private final long peakRssKb;
+    private final long stdoutBytes;    // everything written, even past the output cap
+    private final long stderrBytes;
+
+    public ResourceUsage(long wallNanos, long cpuNanos, long peakRssKb,
+                         long stdoutBytes, long stderrBytes) {
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.peakRssKb = peakRssKb;
+        this.stdoutBytes = stdoutBytes;
+        this.stderrBytes = stderrBytes;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public long getPeakRssKb() {
+        return peakRssKb;
+    }
+
+    public long getStdoutBytes() {
+        return stdoutBytes;
+    }
+
+    public long getStderrBytes() {
+        return stderrBytes;
+    }
+
+    public boolean isKnown() {
+        return wallNanos >= 0;
+    }
+
+    /**
+     * Totals over several executions: times and bytes add up, peak
+     * memory is the largest peak. A figure stays known as long as
+     * either side knows it.
+     */
+    public ResourceUsage plus(ResourceUsage o) {
+        return new ResourceUsage(
+                add(wallNanos, o.wallNanos),
+                add(cpuNanos, o.cpuNanos),
+                Math.max(peakRssKb, o.peakRssKb),
+                add(stdoutBytes, o.stdoutBytes),
+                add(stderrBytes, o.stderrBytes));
+    }
+
+    private static long add(long a, long b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        return a + b;
+    }
+
+    // e.g. "wall 84.2 ms · CPU 121.0 ms · peak RSS 38.1 MB · stdout 9 B · stderr 0 B"
+    public String format() {
+        if (!isKnown()) return "not measured";
+        return "wall " + nanos(wallNanos)
+                + (cpuNanos < 0 ? " · CPU not sampled" : " · CPU " + nanos(cpuNanos))
+                + " · peak RSS " + (peakRssKb < 0 ? "n/a" : String.format("%.1f MB", peakRssKb / 1024.0))
+                + " · stdout " + bytes(stdoutBytes)
+                + " · stderr " + bytes(stderrBytes);
+    }
+
+    private static String nanos(long n) {
+        return n < 0 ? "n/a" : String.format("%.1f ms", n / 1e6);
+    }
+
+    private static String bytes(long b) {
+        if (b < 0) return "n/a";
+        if (b < 1024) return b + " B";
+        if (b < 1024 * 1024) return String.format("%.1f KB", b / 1024.0);
+        return String.format("%.1f MB", b / (1024.0 * 1024));
+    }
+
+    // ------------ WIRE FORMAT (worker protocol, ResultCodec) --------------
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(wallNanos);
+        out.writeLong(cpuNanos);
+        out.writeLong(peakRssKb);
+        out.writeLong(stdoutBytes);
+        out.writeLong(stderrBytes);
+    }
+
+    public static ResourceUsage read(DataInput in) throws IOException {
+        return new ResourceUsage(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+    }
+}
@@ -7,6 +7,9 @@ public class Result{
     private String expected;          // Expected output (for normal tests)
     private String actual;            // Actual output (for normal tests)
     private String compileError;      // Non-null only for compilation errors
+    private RunStatus status;         // How the run ended (TIMEOUT, OUTPUT_LIMIT, ...)
+    private boolean carriedOver;      // Outcome copied from a previous result, not re-run
+    private ResourceUsage usage = ResourceUsage.UNKNOWN;   // what the execution cost
 
     // === Constructor for normal test case result ===
     public Result(String programName,
@@ -14,6 +17,16 @@ public class Result{
                   boolean passed,
                   String expected,
                   String actual) {
+        this(programName, testCaseTitle, passed, expected, actual, RunStatus.COMPLETED);
+    }
+
+    // === Constructor for test case result with run status ===
+    public Result(String programName,
+                  String testCaseTitle,
+                  boolean passed,
+                  String expected,
+                  String actual,
+                  RunStatus status) {
 
         this.programName = programName;
         this.testCaseTitle = testCaseTitle;
@@ -21,6 +34,7 @@ public class Result{
         this.expected = expected;
         this.actual = actual;
         this.compileError = null;
+        this.status = status;
     }
 
     // === Constructor for compilation error result ===
@@ -31,13 +45,31 @@ public class Result{
         this.expected = null;
         this.actual = null;
         this.compileError = compileErrorMsg;
+        this.status = null;
+    }
+
+    // === Outcome carried over from a previous result during a regrade ===
+    public static Result carriedOver(String programName,
+                                     String testCaseTitle,
+                                     boolean passed,
+                                     String expected) {
+        Result r = new Result(programName, testCaseTitle, passed, expected, null, null);
+        r.carriedOver = true;
+        return r;
     }
 
-    // === Helper ===
+    // === Helpers ===
     public boolean isCompilationError() {
         return compileError != null;
     }
 
+    // PASS / FAIL, or why the run was cut short (TIMEOUT, OUTPUT_LIMIT, ERROR)
+    public String getStatusLabel() {
+        if (isCompilationError()) return "COMPILATION ERROR";
+        if (status != null && status != RunStatus.COMPLETED) return status.name();
+        return passed ? "PASS" : "FAIL";
+    }
+
     // === Getters ===
     public String getProgramName() {
         return programName;
@@ -62,4 +94,21 @@ public class Result{
     public String getCompileError() {
         return compileError;
     }
+
+    public RunStatus getStatus() {
+        return status;
+    }
+
+    public boolean isCarriedOver() {
+        return carriedOver;
+    }
+
+    // UNKNOWN for compile errors, carried-over and cached outcomes
+    public ResourceUsage getUsage() {
+        return usage;
+    }
+
+    public void setUsage(ResourceUsage usage) {
+        this.usage = (usage == null) ? ResourceUsage.UNKNOWN : usage;
+    }
 }
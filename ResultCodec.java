@@ -0,0 +1,328 @@
+/***********************************************
+ * ResultCodec.java
+ * Compact binary format for TestSuiteResult
+ * (replaces Java serialization for saving).
+ *
+ * Layout (DataOutput, big-endian, str = writeUTF):
+ *   header : "ACTR" magic, u16 version, u16 flags (0)
+ *            str suiteName
+ *   titles : int T, then per title: str title,
+ *            bool hasFingerprint, [str fingerprint]
+ *            (suite order; a student's outcomes are
+ *            bit positions in this list)
+ *   index  : int S, then per student (by name):
+ *            str name, int record offset (from the
+ *            start of the record section)
+ *   records: per student, in index order:
+ *            byte flags (1 = compile failed,
+ *                        2 = has submission hash,
+ *                        4 = hash is raw SHA-256,
+ *                        8 = has resource usage, v2)
+ *            [str submissionHash | 32 hash bytes]
+ *            [long wallNanos, cpuNanos, peakRssKb,
+ *             stdoutBytes, stderrBytes]
+ *            long[W] graded bits, long[W] passed bits
+ *            with W = ceil(T / 64)
+ *
+ * Names and titles are stored once; one student
+ * can be read without decoding the others
+ * (readStudent). Files that start with the Java
+ * serialization magic (0xACED) are legacy .ser
+ * files; ResultFileManager still reads those.
+ ***********************************************/
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+public class ResultCodec {
+
+    static final int MAGIC = 0x41435452;            // "ACTR"
+    static final int VERSION = 2;                   // 2: per-student resource usage
+    static final int SERIALIZATION_MAGIC = 0xACED;  // legacy .ser files
+
+    private static final int FLAG_COMPILE_FAILED = 1;
+    private static final int FLAG_HAS_HASH = 2;
+    private static final int FLAG_RAW_SHA256 = 4;
+    private static final int FLAG_HAS_USAGE = 8;
+
+    public enum Format { BINARY, SERIALIZED, UNKNOWN }
+
+    private ResultCodec() { }
+
+    // ------------ DETECTION --------------
+    public static Format detect(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] head = in.readNBytes(4);
+            if (head.length >= 2 && ((head[0] & 0xFF) << 8 | (head[1] & 0xFF)) == SERIALIZATION_MAGIC)
+                return Format.SERIALIZED;
+            if (head.length == 4 && ((head[0] & 0xFF) << 24 | (head[1] & 0xFF) << 16
+                    | (head[2] & 0xFF) << 8 | (head[3] & 0xFF)) == MAGIC)
+                return Format.BINARY;
+            return Format.UNKNOWN;
+        }
+    }
+
+    // ------------ WRITE --------------
+    public static void write(TestSuiteResult tsr, OutputStream target) throws IOException {
+
+        List<String> titles = titleDictionary(tsr);
+        Map<String, Integer> ordinal = new LinkedHashMap<>();
+        for (String t : titles) ordinal.put(t, ordinal.size());
+        int words = (titles.size() + 63) / 64;
+
+        List<String> names = new ArrayList<>(tsr.getAllStudentNames());
+        names.sort(null);
+
+        // records first, so the index can hold their offsets
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int[] offsets = new int[names.size()];
+
+        for (int i = 0; i < names.size(); i++) {
+            offsets[i] = records.size();
+            StudentResult sr = tsr.getStudentResult(names.get(i));
+
+            String hash = sr.getSubmissionHash();
+            byte[] raw = (hash == null) ? null : sha256Bytes(hash);
+            boolean usage = sr.getUsage().isKnown();
+            int flags = (sr.didCompileFail() ? FLAG_COMPILE_FAILED : 0)
+                    | (hash != null ? FLAG_HAS_HASH : 0)
+                    | (raw != null ? FLAG_RAW_SHA256 : 0)
+                    | (usage ? FLAG_HAS_USAGE : 0);
+            records.writeByte(flags);
+            if (raw != null) records.write(raw);
+            else if (hash != null) records.writeUTF(hash);
+            if (usage) sr.getUsage().write(records);
+
+            long[] graded = new long[words];
+            long[] passed = new long[words];
+            for (Map.Entry<String, Boolean> e : sr.getOutcomes().entrySet()) {
+                int bit = ordinal.get(e.getKey());
+                graded[bit >>> 6] |= 1L << bit;
+                if (e.getValue()) passed[bit >>> 6] |= 1L << bit;
+            }
+            for (long w : graded) records.writeLong(w);
+            for (long w : passed) records.writeLong(w);
+        }
+        records.flush();
+
+        DataOutputStream out = new DataOutputStream(target);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(0);
+        out.writeUTF(tsr.getSuiteName());
+
+        out.writeInt(titles.size());
+        for (String t : titles) {
+            out.writeUTF(t);
+            String fp = tsr.getTestFingerprint(t);
+            out.writeBoolean(fp != null);
+            if (fp != null) out.writeUTF(fp);
+        }
+
+        out.writeInt(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            out.writeUTF(names.get(i));
+            out.writeInt(offsets[i]);
+        }
+
+        recordBytes.writeTo(out);
+        out.flush();
+    }
+
+    // Suite order (fingerprinted titles) first, then any other graded title by name
+    private static List<String> titleDictionary(TestSuiteResult tsr) {
+        List<String> titles = new ArrayList<>(tsr.getTestTitles());
+        TreeSet<String> extra = new TreeSet<>();
+        for (String name : tsr.getAllStudentNames())
+            extra.addAll(tsr.getStudentResult(name).getOutcomes().keySet());
+        extra.removeAll(titles);
+        titles.addAll(extra);
+        return titles;
+    }
+
+    // ------------ READ --------------
+    public static TestSuiteResult read(InputStream source) throws IOException {
+
+        Reader reader = new Reader(new DataInputStream(new BufferedInputStream(source)));
+        TestSuiteResult tsr = reader.getHeader();
+
+        StudentResult sr;
+        while ((sr = reader.next()) != null)
+            tsr.addStudentResult(sr);
+        return tsr;
+    }
+
+    /** Streams the students of a binary result file in name order. */
+    public static Reader open(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        try {
+            return new Reader(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public static class Reader implements ResultCursor {
+        private final DataInputStream in;
+        private final Header h;
+        private final String[] names;
+        private final TestSuiteResult header;
+        private int next;
+
+        private Reader(DataInputStream in) throws IOException {
+            this.in = in;
+            this.h = readHeader(in);
+
+            header = new TestSuiteResult(h.suiteName);
+            for (int i = 0; i < h.titles.length; i++) {
+                if (h.fingerprints[i] != null) header.setTestFingerprint(h.titles[i], h.fingerprints[i]);
+                else header.getTitleDictionary().intern(h.titles[i]);
+            }
+
+            names = new String[in.readInt()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = in.readUTF();
+                in.readInt(); // offset; records follow in index order
+            }
+        }
+
+        // students read from here share its title dictionary, so adding
+        // them back needs no remapping
+        @Override
+        public TestSuiteResult getHeader() {
+            return header;
+        }
+
+        @Override
+        public String getSuiteName() {
+            return h.suiteName;
+        }
+
+        @Override
+        public int getStudentCount() {
+            return names.length;
+        }
+
+        @Override
+        public StudentResult next() throws IOException {
+            if (next >= names.length) return null;
+            String name = names[next++];
+            return readRecord(in, name, h.titles, header.getTitleDictionary());
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /** One student's result, read by seeking via the index; null if absent. */
+    public static StudentResult readStudent(Path file, String studentName) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            Header h = readHeader(in);
+
+            int students = in.readInt();
+            int found = -1;
+            for (int i = 0; i < students; i++) {
+                String name = in.readUTF();
+                int offset = in.readInt();
+                if (found < 0 && name.equals(studentName)) found = offset;
+            }
+            if (found < 0) return null;
+
+            // skipping is a seek on the underlying file, nothing is decoded
+            in.skipNBytes(found);
+            return readRecord(in, studentName, h.titles, new TitleDictionary());
+        }
+    }
+
+    private static StudentResult readRecord(DataInput in, String name, String[] titles,
+                                            TitleDictionary dictionary) throws IOException {
+        StudentResult sr = new StudentResult(name, dictionary);
+
+        int flags = in.readUnsignedByte();
+        if ((flags & FLAG_COMPILE_FAILED) != 0) sr.setCompileFailed();
+        if ((flags & FLAG_RAW_SHA256) != 0) {
+            byte[] raw = new byte[32];
+            in.readFully(raw);
+            sr.setSubmissionHash(toHex(raw));
+        } else if ((flags & FLAG_HAS_HASH) != 0) {
+            sr.setSubmissionHash(in.readUTF());
+        }
+        if ((flags & FLAG_HAS_USAGE) != 0) sr.setUsage(ResourceUsage.read(in));
+
+        int words = (titles.length + 63) / 64;
+        long[] graded = new long[words];
+        long[] passed = new long[words];
+        for (int w = 0; w < words; w++) graded[w] = in.readLong();
+        for (int w = 0; w < words; w++) passed[w] = in.readLong();
+
+        for (int bit = 0; bit < titles.length; bit++) {
+            if ((graded[bit >>> 6] & (1L << bit)) != 0)
+                sr.setOutcome(titles[bit], (passed[bit >>> 6] & (1L << bit)) != 0);
+        }
+        return sr;
+    }
+
+    // 32 bytes if `hash` is a lowercase hex SHA-256 (ContentHash), else null
+    static byte[] sha256Bytes(String hash) {
+        if (hash.length() != 64) return null;
+        byte[] raw = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            int hi = Character.digit(hash.charAt(2 * i), 16);
+            int lo = Character.digit(hash.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0 || Character.isUpperCase(hash.charAt(2 * i))
+                    || Character.isUpperCase(hash.charAt(2 * i + 1))) return null;
+            raw[i] = (byte) (hi << 4 | lo);
+        }
+        return raw;
+    }
+
+    static String toHex(byte[] raw) {
+        StringBuilder sb = new StringBuilder(raw.length * 2);
+        for (byte b : raw) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+
+    private static Header readHeader(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not a test suite result file.");
+        int version = in.readUnsignedShort();
+        if (version > VERSION)
+            throw new IOException("Result file version " + version + " is newer than supported (" + VERSION + ").");
+        in.readUnsignedShort(); // flags, unused in v1
+
+        Header h = new Header();
+        h.suiteName = in.readUTF();
+
+        int count = in.readInt();
+        h.titles = new String[count];
+        h.fingerprints = new String[count];
+        for (int i = 0; i < count; i++) {
+            h.titles[i] = in.readUTF();
+            if (in.readBoolean()) h.fingerprints[i] = in.readUTF();
+        }
+        return h;
+    }
+
+    private static class Header {
+        String suiteName;
+        String[] titles;
+        String[] fingerprints;
+    }
+}
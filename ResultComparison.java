@@ -0,0 +1,65 @@
+/***********************************************
+ * ResultComparison.java
+ * N-way comparison of saved results (e.g. the
+ * resubmission rounds of one assignment).
+ *
+ * Every file is opened as a ResultCursor, which
+ * yields students in name order, and the cursors
+ * are joined with a sorted merge: the smallest
+ * name among the current heads is the next
+ * student, and only the cursors holding it
+ * advance. At most one student per file is in
+ * memory at a time (legacy .ser files are the
+ * exception; they can only be loaded whole).
+ ***********************************************/
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ResultComparison {
+
+    private ResultComparison() { }
+
+    /**
+     * Streams one StudentTrend per student found in any cursor, in name
+     * order, to `sink`. Round i of each trend comes from cursors.get(i).
+     * Returns the number of students. The cursors are not closed.
+     */
+    public static int merge(List<? extends ResultCursor> cursors,
+                            Consumer<StudentTrend> sink) throws IOException {
+
+        int rounds = cursors.size();
+        StudentResult[] heads = new StudentResult[rounds];
+        for (int i = 0; i < rounds; i++) heads[i] = cursors.get(i).next();
+
+        int students = 0;
+        while (true) {
+            // a handful of rounds: a linear scan beats a heap here
+            String name = null;
+            for (StudentResult h : heads)
+                if (h != null && (name == null || h.getStudentName().compareTo(name) < 0))
+                    name = h.getStudentName();
+            if (name == null) return students;
+
+            StudentTrend trend = new StudentTrend(name, rounds);
+            for (int i = 0; i < rounds; i++) {
+                if (heads[i] == null || !heads[i].getStudentName().equals(name)) continue;
+                trend.set(i, heads[i]);
+                heads[i] = advance(cursors.get(i), name, i);
+            }
+            sink.accept(trend);
+            students++;
+        }
+    }
+
+    // next student of `cursor`, checking the order the merge relies on
+    private static StudentResult advance(ResultCursor cursor, String previous, int round)
+            throws IOException {
+        StudentResult next = cursor.next();
+        if (next != null && next.getStudentName().compareTo(previous) <= 0)
+            throw new IOException("Result file " + (round + 1) + " is not in student name order ("
+                    + next.getStudentName() + " after " + previous + ").");
+        return next;
+    }
+}
@@ -0,0 +1,27 @@
+/***********************************************
+ * ResultCursor.java
+ * Forward-only stream over the students of one
+ * saved TestSuiteResult, in ascending name order
+ * (String natural order), one StudentResult at a
+ * time. Used to merge many result files without
+ * loading any of them fully.
+ ***********************************************/
+
+import java.io.IOException;
+
+public interface ResultCursor extends AutoCloseable {
+
+    String getSuiteName();
+
+    int getStudentCount();
+
+    // Suite name and test fingerprints, no students; adding every
+    // student of this cursor to it gives back the saved result
+    TestSuiteResult getHeader();
+
+    // next student, or null at the end
+    StudentResult next() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
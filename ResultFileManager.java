@@ -1,24 +1,55 @@
 /***************************************************
  * ResultFileManager.java
- * Saves & loads TestSuiteResult objects via serialization.
+ * Saves & loads TestSuiteResult objects.
+ * Saves use the compact binary format (ResultCodec);
+ * loads accept that format and legacy serialized
+ * .ser files, detected by their first bytes.
  ***************************************************/
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 
 public class ResultFileManager {
 
-    // Match Coordinator: saveResult(...)
-    public void saveResult(TestSuiteResult tsr, String path) {
+    // Match Coordinator: saveResult(...); false if nothing was written
+    public boolean saveResult(TestSuiteResult tsr, String path) {
         if (tsr == null || path == null) {
             System.out.println("Error saving result: null argument.");
-            return;
+            return false;
         }
 
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(path))) {
-            out.writeObject(tsr);
-            out.flush();
+        // write next to the target and move into place, so a failed save
+        // never leaves a truncated file behind
+        Path target = Paths.get(path).toAbsolutePath();
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                ResultCodec.write(tsr, out);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
             System.out.println("ResultFileManager: Saved TestSuiteResult to " + path);
+            return true;
         } catch (Exception e) {
             System.out.println("Error saving result: " + e.getMessage());
+            return false;
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // leftover temp file; harmless
+                }
+            }
         }
     }
 
@@ -29,8 +60,21 @@ public class ResultFileManager {
             return null;
         }
 
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(path))) {
-            TestSuiteResult tsr = (TestSuiteResult) in.readObject();
+        try {
+            Path file = Paths.get(path);
+            TestSuiteResult tsr;
+            switch (ResultCodec.detect(file)) {
+                case BINARY:
+                    try (InputStream in = Files.newInputStream(file)) {
+                        tsr = ResultCodec.read(in);
+                    }
+                    break;
+                case SERIALIZED:
+                    tsr = loadSerialized(file);
+                    break;
+                default:
+                    throw new IOException("unrecognized file format");
+            }
             System.out.println("ResultFileManager: Loaded TestSuiteResult from " + path);
             return tsr;
         } catch (Exception e) {
@@ -38,4 +82,70 @@ public class ResultFileManager {
             return null;
         }
     }
+
+    // Streams the students of a result file in name order. Binary files
+    // are read record by record; legacy .ser files have to be loaded whole.
+    public ResultCursor openCursor(String path) throws IOException {
+        Path file = Paths.get(path);
+        switch (ResultCodec.detect(file)) {
+            case BINARY:
+                return ResultCodec.open(file);
+            case SERIALIZED:
+                try {
+                    return new LoadedCursor(loadSerialized(file));
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Unreadable result file: " + e.getMessage(), e);
+                }
+            default:
+                throw new IOException("Unrecognized file format: " + path);
+        }
+    }
+
+    // Legacy .ser files written before the binary format
+    private TestSuiteResult loadSerialized(Path file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            return (TestSuiteResult) in.readObject();
+        }
+    }
+
+    // Cursor over a result that is already in memory
+    private static class LoadedCursor implements ResultCursor {
+        private final TestSuiteResult tsr;
+        private final String[] names;
+        private int next;
+
+        LoadedCursor(TestSuiteResult tsr) {
+            this.tsr = tsr;
+            this.names = tsr.getAllStudentNames().toArray(new String[0]);
+            Arrays.sort(this.names);
+        }
+
+        @Override
+        public String getSuiteName() {
+            return tsr.getSuiteName();
+        }
+
+        @Override
+        public int getStudentCount() {
+            return names.length;
+        }
+
+        @Override
+        public TestSuiteResult getHeader() {
+            TestSuiteResult header = new TestSuiteResult(tsr.getSuiteName());
+            for (String title : tsr.getTestTitles())
+                header.setTestFingerprint(title, tsr.getTestFingerprint(title));
+            return header;
+        }
+
+        @Override
+        public StudentResult next() {
+            return next < names.length ? tsr.getStudentResult(names[next++]) : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
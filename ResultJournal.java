@@ -0,0 +1,402 @@
+/***********************************************
+ * ResultJournal.java
+ * Append-only, crash-safe journal of a grading run.
+ * Every (student, test) outcome is appended as it
+ * finishes, so a crash loses at most the last
+ * unsynced batch; replay() turns the journal back
+ * into a (partial) TestSuiteResult for resuming.
+ *
+ * Layout (DataOutput, big-endian, str = writeUTF):
+ *   header : "ACTJ" magic, u16 version, str suiteName,
+ *            int T, then T x (str title, str fingerprint)
+ *   records: u16 length, payload, int CRC32(payload)
+ *     payload = u8 type, then
+ *       NAME     : str student  (next student id)
+ *       COMPILED : int id, u8 flags (1 = failed,
+ *                  2 = has hash, 4 = raw SHA-256),
+ *                  [32 hash bytes | str hash]
+ *       OUTCOME  : int id, u16 test ordinal, bool passed
+ *
+ * A torn or corrupt tail (crash mid-write) fails
+ * its length or CRC check; replay stops there.
+ * A student compiled twice (regrade, resume) keeps
+ * the last COMPILED record and only the outcomes
+ * that still belong to that submission.
+ *
+ * Writes are buffered and fsynced every SYNC_RECORDS
+ * records or SYNC_MILLIS, whichever comes first.
+ * I/O errors disable the journal (with a message)
+ * instead of failing the run.
+ ***********************************************/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+public class ResultJournal implements GradingListener, AutoCloseable {
+
+    static final int MAGIC = 0x4143544A;            // "ACTJ"
+    static final int VERSION = 1;
+
+    static final int SYNC_RECORDS = 512;
+    static final long SYNC_MILLIS = 1000;
+
+    private static final int NAME = 1;
+    private static final int COMPILED = 2;
+    private static final int OUTCOME = 3;
+
+    private static final int FLAG_FAILED = 1;
+    private static final int FLAG_HAS_HASH = 2;
+    private static final int FLAG_RAW_SHA256 = 4;
+
+    private final Path file;
+    private final FileOutputStream fileOut;
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final ScheduledExecutorService syncer;
+
+    private final Map<String, Integer> testOrdinals = new HashMap<>();
+    private final Map<String, Integer> studentIds = new HashMap<>();
+
+    // reused per record (all writes are synchronized)
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(64);
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    private final CRC32 crc = new CRC32();
+
+    private int unsynced;
+    private boolean failed;
+    private boolean closed;
+
+    /**
+     * Start a journal for `suite` at `file`, replacing any file there.
+     * Outcomes in `carried` whose test fingerprint still matches are
+     * copied in first, so a resumed run keeps a complete journal.
+     * The new file is written beside the target and moved into place.
+     */
+    public static ResultJournal create(Path file, TestSuite suite, TestSuiteResult carried)
+            throws IOException {
+
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            ResultJournal seed = new ResultJournal(tmp, suite);
+            if (carried != null) seed.copyFrom(carried, suite);
+            seed.close();
+
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return new ResultJournal(file, suite, seedIds(file));
+    }
+
+    // fresh file with just the header
+    private ResultJournal(Path file, TestSuite suite) throws IOException {
+        this(file, suite, null);
+    }
+
+    private ResultJournal(Path file, TestSuite suite, Map<String, Integer> existingIds) throws IOException {
+        this.file = file;
+
+        List<TestCase> cases = suite.getTestCases();
+        for (int i = 0; i < cases.size(); i++) testOrdinals.putIfAbsent(cases.get(i).getTitle(), i);
+
+        this.fileOut = new FileOutputStream(file.toFile(), existingIds != null);
+        this.channel = fileOut.getChannel();
+        this.out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024));
+
+        if (existingIds != null) {
+            studentIds.putAll(existingIds);
+        } else {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(suite.getTitle());
+            out.writeInt(cases.size());
+            for (TestCase tc : cases) {
+                out.writeUTF(tc.getTitle());
+                out.writeUTF(tc.getFingerprint());
+            }
+        }
+
+        this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        syncer.scheduleWithFixedDelay(this::syncQuietly, SYNC_MILLIS, SYNC_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // ------------ LISTENER --------------
+    @Override
+    public synchronized void studentCompiled(String student, String submissionHash, String compileError) {
+        if (failed) return;
+        try {
+            writeCompiled(studentId(student), submissionHash, compileError != null);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public synchronized void testFinished(Result result) {
+        // carried-over outcomes are already in the journal (see create)
+        if (failed || result.isCarriedOver() || result.isCompilationError()) return;
+        Integer test = testOrdinals.get(result.getTestCaseTitle());
+        if (test == null) return;
+        try {
+            writeOutcome(studentId(result.getProgramName()), test, result.isPassed());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // ------------ WRITING --------------
+    private void copyFrom(TestSuiteResult carried, TestSuite suite) throws IOException {
+        for (String name : carried.getAllStudentNames()) {
+            StudentResult sr = carried.getStudentResult(name);
+            writeCompiled(studentId(name), sr.getSubmissionHash(), sr.didCompileFail());
+
+            for (TestCase tc : suite.getTestCases()) {
+                Boolean passed = sr.getOutcome(tc.getTitle());
+                if (passed != null && tc.getFingerprint().equals(carried.getTestFingerprint(tc.getTitle())))
+                    writeOutcome(studentId(name), testOrdinals.get(tc.getTitle()), passed);
+            }
+        }
+    }
+
+    private int studentId(String student) throws IOException {
+        Integer id = studentIds.get(student);
+        if (id != null) return id;
+
+        id = studentIds.size();
+        studentIds.put(student, id);
+        record.writeByte(NAME);
+        record.writeUTF(student);
+        writeRecord();
+        return id;
+    }
+
+    private void writeCompiled(int id, String hash, boolean compileFailed) throws IOException {
+        byte[] raw = (hash == null) ? null : ResultCodec.sha256Bytes(hash);
+        record.writeByte(COMPILED);
+        record.writeInt(id);
+        record.writeByte((compileFailed ? FLAG_FAILED : 0)
+                | (hash != null ? FLAG_HAS_HASH : 0)
+                | (raw != null ? FLAG_RAW_SHA256 : 0));
+        if (raw != null) record.write(raw);
+        else if (hash != null) record.writeUTF(hash);
+        writeRecord();
+    }
+
+    private void writeOutcome(int id, int test, boolean passed) throws IOException {
+        record.writeByte(OUTCOME);
+        record.writeInt(id);
+        record.writeShort(test);
+        record.writeBoolean(passed);
+        writeRecord();
+    }
+
+    // frame the pending record: length, payload, CRC
+    private void writeRecord() throws IOException {
+        record.flush();
+        crc.reset();
+        crc.update(recordBytes.toByteArray(), 0, recordBytes.size());
+
+        out.writeShort(recordBytes.size());
+        recordBytes.writeTo(out);
+        out.writeInt((int) crc.getValue());
+        recordBytes.reset();
+
+        if (++unsynced >= SYNC_RECORDS) sync();
+    }
+
+    private synchronized void sync() throws IOException {
+        if (failed || closed || unsynced == 0) return;
+        out.flush();
+        channel.force(false);
+        unsynced = 0;
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private synchronized void fail(IOException e) {
+        if (failed) return;
+        failed = true;
+        System.out.println("[ResultJournal] Journal disabled, cannot write " + file + ": " + e.getMessage());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        syncer.shutdownNow();
+        try {
+            if (!failed) sync();
+        } finally {
+            closed = true;
+            out.close();
+        }
+    }
+
+    // ------------ REPLAY --------------
+    /** Outcomes recorded in the journal, or null if there is no journal file. */
+    public static TestSuiteResult replay(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        return read(file).result;
+    }
+
+    // ids of the students already named in an existing journal
+    private static Map<String, Integer> seedIds(Path file) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = read(file).names;
+        for (int i = 0; i < names.size(); i++) ids.put(names.get(i), i);
+        return ids;
+    }
+
+    private static Contents read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+
+            if (in.readInt() != MAGIC) throw new IOException("Not a result journal: " + file);
+            int version = in.readUnsignedShort();
+            if (version > VERSION) throw new IOException("Unsupported journal version " + version);
+
+            TestSuiteResult tsr = new TestSuiteResult(in.readUTF());
+            int tests = in.readInt();
+            String[] titles = new String[tests];
+            for (int i = 0; i < tests; i++) {
+                titles[i] = in.readUTF();
+                tsr.setTestFingerprint(titles[i], in.readUTF());
+            }
+
+            Contents c = new Contents(tsr);
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    payload = new byte[in.readUnsignedShort()];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if (in.readInt() != (int) crc.getValue()) break;   // corrupt tail
+                } catch (EOFException e) {
+                    break;                                             // clean end or torn tail
+                }
+                try {
+                    c.apply(new DataInputStream(new ByteArrayInputStream(payload)), titles);
+                } catch (IOException e) {
+                    break;                                             // malformed record
+                }
+            }
+            return c;
+        }
+    }
+
+    // state rebuilt while replaying
+    private static class Contents {
+        final TestSuiteResult result;
+        final List<String> names = new ArrayList<>();
+        final Map<String, StudentResult> students = new HashMap<>();
+
+        Contents(TestSuiteResult result) {
+            this.result = result;
+        }
+
+        void apply(DataInputStream r, String[] titles) throws IOException {
+            switch (r.readUnsignedByte()) {
+                case NAME:
+                    names.add(r.readUTF());
+                    break;
+
+                case COMPILED: {
+                    StudentResult sr = student(r.readInt());
+                    int flags = r.readUnsignedByte();
+                    boolean compileFailed = (flags & FLAG_FAILED) != 0;
+                    String hash = null;
+                    if ((flags & FLAG_RAW_SHA256) != 0) {
+                        byte[] raw = new byte[32];
+                        r.readFully(raw);
+                        hash = ResultCodec.toHex(raw);
+                    } else if ((flags & FLAG_HAS_HASH) != 0) {
+                        hash = r.readUTF();
+                    }
+
+                    // The last COMPILED record wins. Outcomes recorded so far only
+                    // survive a recompile of the same, compiling submission (the
+                    // engine carries those over without journaling them again).
+                    boolean sameSubmission = hash != null && hash.equals(sr.getSubmissionHash())
+                            && !compileFailed && !sr.didCompileFail();
+                    if (!sameSubmission && (sr.didCompileFail() || sr.getGradedCount() > 0))
+                        sr = restart(sr.getStudentName());
+                    if (compileFailed) sr.setCompileFailed();
+                    sr.setSubmissionHash(hash);
+                    break;
+                }
+
+                case OUTCOME: {
+                    StudentResult sr = student(r.readInt());
+                    int test = r.readUnsignedShort();
+                    boolean passed = r.readBoolean();
+                    if (test < titles.length) sr.setOutcome(titles[test], passed);
+                    break;
+                }
+
+                default:
+                    // unknown record type from a newer writer; skip it
+            }
+        }
+
+        private StudentResult student(int id) throws IOException {
+            if (id < 0 || id >= names.size()) throw new IOException("Journal refers to unknown student " + id);
+            String name = names.get(id);
+            StudentResult sr = students.get(name);
+            if (sr == null) {
+                sr = new StudentResult(name, result.getTitleDictionary());
+                students.put(name, sr);
+                result.addStudentResult(sr);
+            }
+            return sr;
+        }
+
+        // a fresh result in place of the student's old one
+        private StudentResult restart(String name) {
+            StudentResult sr = new StudentResult(name, result.getTitleDictionary());
+            students.put(name, sr);
+            result.addStudentResult(sr);
+            return sr;
+        }
+    }
+}
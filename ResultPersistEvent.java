@@ -0,0 +1,39 @@
+/***********************************************
+ * ResultPersistEvent.java
+ * JFR event: a TestSuiteResult saved to or
+ * loaded from disk through the Coordinator.
+ ***********************************************/
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("assignmentcompiler.ResultPersist")
+@Label("Result Persist")
+@Category({"Assignment Compiler", "Results"})
+@Description("Saving or loading a TestSuiteResult file")
+public class ResultPersistEvent extends Event {
+
+    @Label("Operation")
+    @Description("save or load")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Suite")
+    String suite;
+
+    @Label("Students")
+    int students = -1;
+
+    @Label("File Size")
+    @DataAmount
+    long bytes = -1;
+
+    @Label("Success")
+    boolean success;
+}
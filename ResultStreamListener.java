@@ -0,0 +1,22 @@
+/***********************************************
+ * ResultStreamListener.java
+ * Callbacks from Coordinator's asynchronous load
+ * and compare, so a window can open on the header
+ * and fill in rows while the rest is still read.
+ *
+ * Calls come from a background thread, in order:
+ *   opened -> (item / progress)*
+ * UI code should hand off to its own thread.
+ ***********************************************/
+
+public interface ResultStreamListener<T> {
+
+    // Header read. `total` is the number of records that will be read
+    // (students in the file; for a comparison, summed over all files).
+    default void opened(String suiteName, long total) { }
+
+    // One student (load) or one student's trend (compare), in name order
+    default void item(T item) { }
+
+    default void progress(long done, long total) { }
+}
@@ -0,0 +1,31 @@
+/***********************************************
+ * RunLimits.java
+ * Per-test limits applied to every execution
+ * mode: wall-clock timeout and the maximum number
+ * of bytes captured per output stream.
+ ***********************************************/
+
+public class RunLimits {
+
+    public static final RunLimits DEFAULT = new RunLimits(10_000, 1 << 20);
+
+    private final long timeoutMillis;
+    private final int outputLimitBytes;
+
+    public RunLimits(long timeoutMillis, int outputLimitBytes) {
+        if (timeoutMillis < 1)
+            throw new IllegalArgumentException("Timeout must be positive.");
+        if (outputLimitBytes < 1)
+            throw new IllegalArgumentException("Output limit must be positive.");
+        this.timeoutMillis = timeoutMillis;
+        this.outputLimitBytes = outputLimitBytes;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public int getOutputLimitBytes() {
+        return outputLimitBytes;
+    }
+}
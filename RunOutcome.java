@@ -0,0 +1,87 @@
+/***********************************************
+ * RunOutcome.java
+ * Raw outcome of running a student's program
+ * once, whatever the execution mode.
+ ***********************************************/
+
+public class RunOutcome {
+
+    private RunStatus status;
+    private Integer exitCode;    // null if the program never finished
+    private String stdout;
+    private String stderr;
+
+    // Process timings (forked runs only; -1 when not measured)
+    private long spawnNanos = -1;        // ProcessBuilder.start()
+    private long firstOutputNanos = -1;  // start() called .. first stdout byte
+
+    private long pid = -1;               // process it ran in (-1 when unknown)
+    private ResourceUsage usage = ResourceUsage.UNKNOWN;
+
+    public RunOutcome(RunStatus status, Integer exitCode, String stdout, String stderr) {
+        this.status = status;
+        this.exitCode = exitCode;
+        this.stdout = (stdout == null) ? "" : stdout;
+        this.stderr = (stderr == null) ? "" : stderr;
+    }
+
+    public static RunOutcome error(String message) {
+        return new RunOutcome(RunStatus.ERROR, null, "", message);
+    }
+
+    public RunStatus getStatus() {
+        return status;
+    }
+
+    public Integer getExitCode() {
+        return exitCode;
+    }
+
+    public String getStdout() {
+        return stdout;
+    }
+
+    public String getStderr() {
+        return stderr;
+    }
+
+    void setTimings(long spawnNanos, long firstOutputNanos) {
+        this.spawnNanos = spawnNanos;
+        this.firstOutputNanos = firstOutputNanos;
+    }
+
+    public long getSpawnNanos() {
+        return spawnNanos;
+    }
+
+    public long getFirstOutputNanos() {
+        return firstOutputNanos;
+    }
+
+    void setPid(long pid) {
+        this.pid = pid;
+    }
+
+    public long getPid() {
+        return pid;
+    }
+
+    void setUsage(ResourceUsage usage) {
+        this.usage = (usage == null) ? ResourceUsage.UNKNOWN : usage;
+    }
+
+    public ResourceUsage getUsage() {
+        return usage;
+    }
+
+    /**
+     * What the grader compares against the expected output:
+     * the first line of stdout, trimmed ("" if there is none).
+     */
+    public String firstLine() {
+        int end = 0;
+        while (end < stdout.length() && stdout.charAt(end) != '\n' && stdout.charAt(end) != '\r')
+            end++;
+        return stdout.substring(0, end).trim();
+    }
+}
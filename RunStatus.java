@@ -0,0 +1,19 @@
+/***********************************************
+ * RunStatus.java
+ * How one execution of a student's program ended.
+ ***********************************************/
+
+public enum RunStatus {
+
+    // Program ran to the end (any exit code).
+    COMPLETED,
+
+    // Killed after exceeding the wall-clock limit.
+    TIMEOUT,
+
+    // Killed after writing more than the output limit.
+    OUTPUT_LIMIT,
+
+    // Process could not be started / runner crashed.
+    ERROR
+}
@@ -0,0 +1,120 @@
+/***********************************************
+ * RunnerWorker.java
+ * Entry point of a long-lived worker JVM started
+ * by WorkerPool. Reads jobs from stdin, runs each
+ * one in a fresh class loader via MainInvoker and
+ * writes the captured output back on stdout.
+ *
+ * Protocol (DataInput/DataOutput, big-endian):
+ *   request : int op (1 = RUN, 0 = SHUTDOWN)
+ *             str classPath, str mainClass, str input,
+ *             long timeoutMillis, int outputLimitBytes
+ *   response: int RunStatus ordinal, int exitCode (-1 = none),
+ *             str stdout, str stderr,
+ *             long wallNanos, long cpuNanos, long peakRssKb,
+ *             long stdoutBytes, long stderrBytes (ResourceUsage)
+ *   str = int length + UTF-8 bytes
+ *
+ * The grader checks every reply (status in range,
+ * lengths within the output limit) and gives up on
+ * a worker that does not answer in time.
+ *
+ * The worker exits on SHUTDOWN or when stdin closes
+ * (i.e. the grader went away).
+ ***********************************************/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+
+public class RunnerWorker {
+
+    static final int OP_SHUTDOWN = 0;
+    static final int OP_RUN = 1;
+
+    public static void main(String[] args) throws IOException {
+
+        // Keep the protocol on the real file descriptors and make sure nothing
+        // else (e.g. a thread left behind by a timed-out job) can write to them.
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err);
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+
+        if (!MainInvoker.install()) {
+            System.err.println("[RunnerWorker] Cannot trap System.exit, exiting.");
+            return;
+        }
+
+        while (true) {
+            int op;
+            try {
+                op = in.readInt();
+            } catch (EOFException e) {
+                return; // grader closed the pipe
+            }
+            if (op != OP_RUN) return;
+
+            String classPath = readString(in);
+            String mainClass = readString(in);
+            String input = readString(in);
+            RunLimits limits = new RunLimits(in.readLong(), in.readInt());
+
+            RunOutcome outcome;
+            try (URLClassLoader loader = new URLClassLoader(toUrls(classPath),
+                    ClassLoader.getPlatformClassLoader())) {
+                outcome = MainInvoker.invoke(loader, mainClass, input, limits);
+            }
+
+            out.writeInt(outcome.getStatus().ordinal());
+            out.writeInt(outcome.getExitCode() == null ? -1 : outcome.getExitCode());
+            writeString(out, outcome.getStdout());
+            writeString(out, outcome.getStderr());
+            outcome.getUsage().write(out);
+            out.flush();
+        }
+    }
+
+    private static URL[] toUrls(String classPath) throws MalformedURLException {
+        String[] entries = classPath.split(File.pathSeparator);
+        URL[] urls = new URL[entries.length];
+        for (int i = 0; i < entries.length; i++)
+            urls[i] = new File(entries[i]).toURI().toURL();
+        return urls;
+    }
+
+    // ------------ WIRE HELPERS (shared with WorkerPool) --------------
+    static String readString(DataInputStream in) throws IOException {
+        return readString(in, Integer.MAX_VALUE);
+    }
+
+    // Length prefixes outside 0..maxBytes mean the stream is out of step
+    static String readString(DataInputStream in, int maxBytes) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > maxBytes)
+            throw new IOException("Bad string length " + length + " (limit " + maxBytes + ").");
+        byte[] b = new byte[length];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+}
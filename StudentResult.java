@@ -1,15 +1,56 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 public class StudentResult implements Serializable {
 
+    // Pinned to the value of the original class so older .ser files still load
+    private static final long serialVersionUID = 3741460929628660749L;
+
+    // Stream layout of the original class (outcomes as a HashMap),
+    // kept so .ser files stay readable and writable both ways.
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("studentName", String.class),
+            new ObjectStreamField("compileFailed", boolean.class),
+            new ObjectStreamField("outcomes", Map.class),
+            new ObjectStreamField("submissionHash", String.class)
+    };
+
+    private static final long[] NO_BITS = new long[0];
+
     private String studentName;
     private boolean compileFailed = false;
-    private Map<String, Boolean> outcomes = new HashMap<>();
+    private String submissionHash;   // sources graded (null in files saved before regrading existed)
+
+    // Outcomes as bits, indexed by the title's ordinal in `titles`
+    // (shared with the TestSuiteResult this student belongs to).
+    private transient TitleDictionary titles;
+    private transient long[] graded = NO_BITS;
+    private transient long[] passed = NO_BITS;
+    private transient int gradedCount;
+    private transient int passedCount;
+
+    // Summed over the executions run for this student (not part of the
+    // legacy layout; ResultCodec stores it)
+    private transient ResourceUsage usage = ResourceUsage.UNKNOWN;
 
     public StudentResult(String name) {
+        this(name, new TitleDictionary());
+    }
+
+    public StudentResult(String name, TitleDictionary titles) {
         this.studentName = name;
+        this.titles = titles;
     }
 
     public String getStudentName() {
@@ -25,14 +66,182 @@ public class StudentResult implements Serializable {
     }
 
     public void setOutcome(String testName, boolean passed) {
-        outcomes.put(testName, passed);
+        setOutcome(titles.intern(testName), passed);
+    }
+
+    // null if this test was not graded for the student
+    public Boolean getOutcome(String testName) {
+        int ord = titles.find(testName);
+        if (ord < 0 || !isSet(graded, ord)) return null;
+        return isSet(passed, ord);
+    }
+
+    // Read-only view in title ordinal (suite) order
+    public Map<String, Boolean> getOutcomes() {
+        return new OutcomeView();
+    }
+
+    public int getPassedCount() {
+        return passedCount;
+    }
+
+    public int getGradedCount() {
+        return gradedCount;
+    }
+
+    public String getSubmissionHash() {
+        return submissionHash;
+    }
+
+    public void setSubmissionHash(String submissionHash) {
+        this.submissionHash = submissionHash;
     }
 
     public String computeSuccessRate() {
         if (compileFailed) return "NO_COMPILE";
-        int passedCount = 0;
-        for (Boolean b : outcomes.values())
-            if (b) passedCount++;
-        return passedCount + "/" + outcomes.size();
+        return passedCount + "/" + gradedCount;
+    }
+
+    // ------------ BITS --------------
+    private void setOutcome(int ord, boolean pass) {
+        int words = (ord >>> 6) + 1;
+        if (graded.length < words) {
+            graded = Arrays.copyOf(graded, words);
+            passed = Arrays.copyOf(passed, words);
+        }
+
+        long bit = 1L << ord;
+        if ((graded[ord >>> 6] & bit) == 0) {
+            graded[ord >>> 6] |= bit;
+            gradedCount++;
+        } else if ((passed[ord >>> 6] & bit) != 0) {
+            passedCount--;       // overwriting a pass
+        }
+
+        if (pass) {
+            passed[ord >>> 6] |= bit;
+            passedCount++;
+        } else {
+            passed[ord >>> 6] &= ~bit;
+        }
+    }
+
+    private static boolean isSet(long[] bits, int ord) {
+        return (ord >>> 6) < bits.length && (bits[ord >>> 6] & (1L << ord)) != 0;
+    }
+
+    // next graded ordinal >= from, or -1
+    private int nextGraded(int from) {
+        for (int w = from >>> 6; w < graded.length; w++) {
+            long word = graded[w] & (w == from >>> 6 ? -1L << from : -1L);
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        return -1;
+    }
+
+    /** Move onto `shared` (the owning TestSuiteResult's dictionary), remapping bits if needed. */
+    void bindTo(TitleDictionary shared) {
+        if (titles == shared) return;
+
+        TitleDictionary old = titles;
+        long[] oldGraded = graded;
+        long[] oldPassed = passed;
+
+        titles = shared;
+        graded = NO_BITS;
+        passed = NO_BITS;
+        gradedCount = 0;
+        passedCount = 0;
+        for (int ord = 0; ord < old.size(); ord++) {
+            if (isSet(oldGraded, ord)) setOutcome(shared.intern(old.title(ord)), isSet(oldPassed, ord));
+        }
+    }
+
+    public ResourceUsage getUsage() {
+        return usage;
+    }
+
+    public void setUsage(ResourceUsage usage) {
+        this.usage = (usage == null) ? ResourceUsage.UNKNOWN : usage;
+    }
+
+    public void addUsage(ResourceUsage more) {
+        if (more != null && more.isKnown()) usage = usage.plus(more);
+    }
+
+    // ------------ SERIALIZATION (legacy layout) --------------
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField f = out.putFields();
+        f.put("studentName", studentName);
+        f.put("compileFailed", compileFailed);
+        f.put("outcomes", new HashMap<>(getOutcomes()));
+        f.put("submissionHash", submissionHash);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField f = in.readFields();
+        studentName = (String) f.get("studentName", null);
+        compileFailed = f.get("compileFailed", false);
+        submissionHash = (String) f.get("submissionHash", null);
+
+        titles = new TitleDictionary();
+        graded = NO_BITS;
+        passed = NO_BITS;
+        usage = ResourceUsage.UNKNOWN;
+        Map<String, Boolean> outcomes = (Map<String, Boolean>) f.get("outcomes", null);
+        if (outcomes != null)
+            for (Map.Entry<String, Boolean> e : outcomes.entrySet())
+                setOutcome(e.getKey(), e.getValue());
+    }
+
+    // ------------ MAP VIEW --------------
+    private class OutcomeView extends AbstractMap<String, Boolean> {
+
+        @Override
+        public int size() {
+            return gradedCount;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && getOutcome((String) key) != null;
+        }
+
+        @Override
+        public Boolean get(Object key) {
+            return key instanceof String ? getOutcome((String) key) : null;
+        }
+
+        @Override
+        public Set<Entry<String, Boolean>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return gradedCount;
+                }
+
+                @Override
+                public Iterator<Entry<String, Boolean>> iterator() {
+                    return new Iterator<>() {
+                        int next = nextGraded(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next >= 0;
+                        }
+
+                        @Override
+                        public Entry<String, Boolean> next() {
+                            if (next < 0) throw new NoSuchElementException();
+                            int ord = next;
+                            next = nextGraded(ord + 1);
+                            return new SimpleImmutableEntry<>(titles.title(ord), isSet(passed, ord));
+                        }
+                    };
+                }
+            };
+        }
     }
 }
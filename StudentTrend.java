@@ -0,0 +1,84 @@
+/***********************************************
+ * StudentTrend.java
+ * One student's results across several saved
+ * rounds (result files), oldest first, as built
+ * by ResultComparison.
+ *
+ * A round where the student has no result reads
+ * "NO_INITIAL" (first round) or "NO_RESUB" (later
+ * rounds), like the two-file comparison always did.
+ ***********************************************/
+
+import java.util.Arrays;
+
+public class StudentTrend {
+
+    static final int ABSENT = -1;
+    static final int NO_COMPILE = -2;
+
+    private final String studentName;
+    private final int[] passed;   // per round; ABSENT / NO_COMPILE otherwise
+    private final int[] graded;
+
+    StudentTrend(String studentName, int rounds) {
+        this.studentName = studentName;
+        this.passed = new int[rounds];
+        this.graded = new int[rounds];
+        Arrays.fill(passed, ABSENT);
+    }
+
+    void set(int round, StudentResult sr) {
+        if (sr.didCompileFail()) {
+            passed[round] = NO_COMPILE;
+        } else {
+            passed[round] = sr.getPassedCount();
+            graded[round] = sr.getGradedCount();
+        }
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+
+    public int getRounds() {
+        return passed.length;
+    }
+
+    public boolean isPresent(int round) {
+        return passed[round] != ABSENT;
+    }
+
+    // Same labels as StudentResult.computeSuccessRate()
+    public String getRate(int round) {
+        switch (passed[round]) {
+            case ABSENT:
+                return round == 0 ? "NO_INITIAL" : "NO_RESUB";
+            case NO_COMPILE:
+                return "NO_COMPILE";
+            default:
+                return passed[round] + "/" + graded[round];
+        }
+    }
+
+    // Passed tests in `round`, or null if the student has no graded result there
+    public Integer getPassed(int round) {
+        return passed[round] >= 0 ? passed[round] : null;
+    }
+
+    // Change in passed tests from round-1 to round; null unless both were graded
+    public Integer getDelta(int round) {
+        if (round <= 0 || passed[round] < 0 || passed[round - 1] < 0) return null;
+        return passed[round] - passed[round - 1];
+    }
+
+    // Change from the first graded round to the last; null with fewer than two
+    public Integer getNetDelta() {
+        int first = -1, last = -1;
+        for (int i = 0; i < passed.length; i++) {
+            if (passed[i] < 0) continue;
+            if (first < 0) first = i;
+            last = i;
+        }
+        return (first < 0 || first == last) ? null : passed[last] - passed[first];
+    }
+}
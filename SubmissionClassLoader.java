@@ -0,0 +1,48 @@
+/***********************************************
+ * SubmissionClassLoader.java
+ * Throwaway class loader for one run of a
+ * student's program. Classes come from the
+ * in-memory compiler output first, then from
+ * .class files in the student folder.
+ *
+ * The parent is the platform loader, so student
+ * code never sees the grader's own classes
+ * (Program, Result, ...) even though both live
+ * in the default package.
+ ***********************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+public class SubmissionClassLoader extends ClassLoader {
+
+    private final Map<String, byte[]> classFiles;
+    private final File folder;
+
+    public SubmissionClassLoader(Map<String, byte[]> classFiles, File folder) {
+        super("submission", ClassLoader.getPlatformClassLoader());
+        this.classFiles = classFiles;
+        this.folder = folder;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes = classFiles.get(name);
+
+        if (bytes == null && folder != null) {
+            File f = new File(folder, name.replace('.', File.separatorChar) + ".class");
+            if (f.isFile()) {
+                try {
+                    bytes = Files.readAllBytes(f.toPath());
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        }
+
+        if (bytes == null) throw new ClassNotFoundException(name);
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+}
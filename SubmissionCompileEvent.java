@@ -0,0 +1,53 @@
+/***********************************************
+ * SubmissionCompileEvent.java
+ * JFR event: one student's submission compiled
+ * (or taken from the CompileCache).
+ *
+ * Emitted by Program.compileAndReturnErrors; the
+ * event duration is the whole compile step.
+ * Record with e.g.
+ *   java -XX:StartFlightRecording=filename=run.jfr GraderCli ...
+ *   jfr print --events assignmentcompiler.SubmissionCompile run.jfr
+ ***********************************************/
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("assignmentcompiler.SubmissionCompile")
+@Label("Submission Compile")
+@Category({"Assignment Compiler", "Grading"})
+@Description("Compilation of one student's submission")
+public class SubmissionCompileEvent extends Event {
+
+    @Label("Student")
+    String student;
+
+    @Label("Submission Hash")
+    @Description("CompileCache key of the sources (null with the javac fallback)")
+    String submissionHash;
+
+    @Label("Compiler")
+    @Description("in-process (javax.tools) or javac (separate process)")
+    String compiler;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Error")
+    @Description("First error line, if compilation failed")
+    String error;
+
+    @Label("Process Id")
+    @Description("javac process, or -1 when compiled in-process")
+    long pid = -1;
+
+    @Label("Exit Code")
+    @Description("javac exit code, or -1 when compiled in-process")
+    int exitCode = -1;
+}
@@ -30,6 +30,15 @@ public class TestCase{
         return expectedOutput;
     }
 
+    /**
+     * Hash of title, input and expected output. Two versions of a test
+     * case with the same fingerprint grade identically, which is what
+     * incremental regrading relies on.
+     */
+    public String getFingerprint() {
+        return ContentHash.of(title, input, expectedOutput);
+    }
+
     // expected vs actual (case-insensitive, ignore extra spaces)
     public boolean compareOutput(String actual) {
         if (actual == null) return false;
@@ -0,0 +1,105 @@
+/***********************************************
+ * TestExecutionEvent.java
+ * JFR event: one (student, test case) execution.
+ *
+ * Emitted by the ExecutionEngine around each run,
+ * whatever the execution mode. Outputs reused from
+ * the OutputCache are emitted too (cached = true),
+ * so every test of a run has one event. In BATCH
+ * mode all inputs share one harness JVM and are
+ * only reported when it exits: those events are
+ * committed without a duration, and Run Time holds
+ * the harness's timing of the input.
+ ***********************************************/
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("assignmentcompiler.TestExecution")
+@Label("Test Execution")
+@Category({"Assignment Compiler", "Grading"})
+@Description("One run of a student's program against a test case")
+public class TestExecutionEvent extends Event {
+
+    @Label("Student")
+    String student;
+
+    @Label("Test Case")
+    String test;
+
+    @Label("Execution Mode")
+    String mode;
+
+    @Label("Status")
+    @Description("COMPLETED, TIMEOUT, OUTPUT_LIMIT or ERROR")
+    String status;
+
+    @Label("Process Id")
+    @Description("Process the program ran in, or -1 if unknown")
+    long pid = -1;
+
+    @Label("Exit Code")
+    @Description("-1 if the program never finished")
+    int exitCode = -1;
+
+    @Label("Stdout Read")
+    @DataAmount
+    long stdoutBytes = -1;
+
+    @Label("Stderr Read")
+    @DataAmount
+    long stderrBytes = -1;
+
+    @Label("Run Time")
+    @Description("Wall time of this input as measured where it ran; in BATCH mode the harness's "
+            + "per-input timing (the event itself has no duration there)")
+    @Timespan(Timespan.NANOSECONDS)
+    long runTime = -1;
+
+    @Label("CPU Time")
+    @Description("User + system CPU time of the program; sampled for forked runs, so a lower bound there")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime = -1;
+
+    @Label("Peak RSS")
+    @Description("Peak resident memory of the child process (forked runs on Linux only)")
+    @DataAmount
+    long peakRss = -1;
+
+    @Label("Spawn Time")
+    @Description("Time spent in ProcessBuilder.start() (forked runs only)")
+    @Timespan(Timespan.NANOSECONDS)
+    long spawnTime = -1;
+
+    @Label("Time To First Output")
+    @Timespan(Timespan.NANOSECONDS)
+    long firstOutputTime = -1;
+
+    @Label("Cached")
+    @Description("Output reused from the OutputCache; nothing was run")
+    boolean cached;
+
+    @Label("Batch Size")
+    @Description("Inputs run by the same harness JVM (BATCH mode), else 1")
+    int batchSize = 1;
+
+    // copies what the outcome knows about the child process
+    void setOutcome(RunOutcome run) {
+        status = run.getStatus().name();
+        exitCode = (run.getExitCode() == null) ? -1 : run.getExitCode();
+        pid = run.getPid();
+        ResourceUsage usage = run.getUsage();
+        stdoutBytes = usage.getStdoutBytes();
+        stderrBytes = usage.getStderrBytes();
+        runTime = usage.getWallNanos();
+        cpuTime = usage.getCpuNanos();
+        peakRss = usage.getPeakRssKb() < 0 ? -1 : usage.getPeakRssKb() * 1024;
+        spawnTime = run.getSpawnNanos();
+        firstOutputTime = run.getFirstOutputNanos();
+    }
+}
@@ -1,12 +1,25 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class TestSuiteResult implements Serializable {
 
+    // Pinned to the value of the original class so older .ser files still load
+    private static final long serialVersionUID = -4390947121209651105L;
+
     private String suiteName;
     private Map<String, StudentResult> studentResults;
+    private Map<String, String> testFingerprints;   // title -> TestCase fingerprint, suite order
+
+    // title ordinals shared by every StudentResult in this suite result
+    private transient TitleDictionary titles = new TitleDictionary();
 
     public TestSuiteResult(String suiteName) {
         this.suiteName = suiteName;
@@ -18,6 +31,7 @@ public class TestSuiteResult implements Serializable {
     }
 
     public void addStudentResult(StudentResult sr) {
+        sr.bindTo(titles);
         studentResults.put(sr.getStudentName(), sr);
     }
 
@@ -29,6 +43,39 @@ public class TestSuiteResult implements Serializable {
         return studentResults.keySet();
     }
 
+    // Fingerprint of each test case this result was graded with
+    public void setTestFingerprint(String testTitle, String fingerprint) {
+        if (testFingerprints == null) testFingerprints = new LinkedHashMap<>();
+        testFingerprints.put(testTitle, fingerprint);
+        titles.intern(testTitle);
+    }
+
+    // Create StudentResults with this so they need no remapping when added
+    public TitleDictionary getTitleDictionary() {
+        return titles;
+    }
+
+    // Titles of the suite's test cases in suite order (empty for old files)
+    public List<String> getTestTitles() {
+        return testFingerprints == null
+                ? Collections.emptyList()
+                : new ArrayList<>(testFingerprints.keySet());
+    }
+
+    // null if unknown (test not in suite, or file saved before fingerprints existed)
+    public String getTestFingerprint(String testTitle) {
+        return testFingerprints == null ? null : testFingerprints.get(testTitle);
+    }
+
+    // The dictionary is not serialized; rebuild it (suite order first)
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        titles = new TitleDictionary();
+        if (testFingerprints != null)
+            for (String title : testFingerprints.keySet()) titles.intern(title);
+        for (StudentResult sr : studentResults.values()) sr.bindTo(titles);
+    }
+
     // ⬇⬇⬇ REQUIRED BY THE UI (Load Results + Compare) ⬇⬇⬇
     public String formatAsText() {
 
@@ -0,0 +1,53 @@
+/***********************************************
+ * TitleDictionary.java
+ * Test case title <-> ordinal mapping shared by
+ * every StudentResult of one TestSuiteResult, so
+ * outcomes can be stored as bits and each title
+ * string is kept once per suite result.
+ *
+ * Ordinals are assigned in first-seen order
+ * (suite order when fingerprints are set first)
+ * and never change. Safe to use from several
+ * grader threads.
+ ***********************************************/
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class TitleDictionary {
+
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private final List<String> titles = new CopyOnWriteArrayList<>();
+
+    /** Ordinal of `title`, adding it if it is new. */
+    public int intern(String title) {
+        Integer ord = ordinals.get(title);
+        if (ord != null) return ord;
+
+        synchronized (this) {
+            ord = ordinals.get(title);
+            if (ord == null) {
+                ord = titles.size();
+                titles.add(title);
+                ordinals.put(title, ord);
+            }
+            return ord;
+        }
+    }
+
+    /** Ordinal of `title`, or -1 if it was never added. */
+    public int find(String title) {
+        Integer ord = ordinals.get(title);
+        return ord == null ? -1 : ord;
+    }
+
+    public String title(int ordinal) {
+        return titles.get(ordinal);
+    }
+
+    public int size() {
+        return titles.size();
+    }
+}
@@ -0,0 +1,262 @@
+/***********************************************
+ * WorkerPool.java
+ * Pool of pre-warmed RunnerWorker JVMs, so test
+ * cases don't pay JVM startup one by one.
+ *
+ * - size          : number of worker JVMs
+ * - maxJobs       : a worker is recycled after this
+ *                   many jobs (bounds leaks from
+ *                   student code)
+ * - routing       : ANY_IDLE hands a job to whichever
+ *                   worker is free; BY_SUBMISSION pins
+ *                   a submission to one worker
+ *
+ * A worker is also recycled right away after a crash
+ * or a job that hit a limit (it may still be running).
+ * The worker's reply is not trusted: one that breaks
+ * the protocol (e.g. student code writing to the real
+ * stdout) or does not arrive within the job's timeout
+ * plus REPLY_GRACE_MILLIS counts as a crash.
+ ***********************************************/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class WorkerPool implements AutoCloseable {
+
+    public enum Routing {
+        ANY_IDLE,
+        BY_SUBMISSION
+    }
+
+    private final int size;
+    private final int maxJobs;
+    private final Routing routing;
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final BlockingQueue<Worker> idle;
+    private volatile boolean closed = false;
+
+    // How long past the job's own timeout a reply may take before the worker counts as hung
+    static final long REPLY_GRACE_MILLIS = 5_000;
+
+    private static final RunStatus[] STATUSES = RunStatus.values();
+
+    // Reads worker replies, so a silent worker cannot block the grader (daemon: never blocks exit)
+    private static final ExecutorService REPLIES = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "worker-reply");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public WorkerPool(int size, int maxJobs, Routing routing) {
+        if (size < 1) throw new IllegalArgumentException("Pool size must be at least 1.");
+        if (maxJobs < 1) throw new IllegalArgumentException("Jobs per worker must be at least 1.");
+        if (routing == null) throw new IllegalArgumentException("Routing is required.");
+
+        this.size = size;
+        this.maxJobs = maxJobs;
+        this.routing = routing;
+        this.idle = new ArrayBlockingQueue<>(size);
+
+        // pre-warm: every worker JVM starts booting now, in parallel
+        for (int i = 0; i < size; i++) {
+            Worker w = new Worker(i);
+            w.start();
+            workers.add(w);
+            idle.add(w);
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxJobs() {
+        return maxJobs;
+    }
+
+    public Routing getRouting() {
+        return routing;
+    }
+
+    /**
+     * Run mainClass from classPath with the given stdin in one of the workers.
+     * Never throws for problems in student code; a crashed worker shows up as
+     * RunStatus.ERROR.
+     */
+    public RunOutcome run(String classPath, String mainClass,
+                          String input, RunLimits limits) {
+        if (closed) throw new IllegalStateException("Worker pool is closed.");
+
+        if (routing == Routing.BY_SUBMISSION) {
+            Worker w = workers.get(Math.floorMod(classPath.hashCode(), size));
+            synchronized (w) {
+                return w.execute(classPath, mainClass, input, limits);
+            }
+        }
+
+        Worker w;
+        try {
+            w = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a worker.", e);
+        }
+        try {
+            synchronized (w) {
+                return w.execute(classPath, mainClass, input, limits);
+            }
+        } finally {
+            idle.offer(w);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Worker w : workers) {
+            synchronized (w) {
+                w.stop();
+            }
+        }
+    }
+
+    // ------------ ONE WORKER JVM --------------
+    private class Worker {
+        private final int id;
+        private Process process;
+        private DataOutputStream toWorker;
+        private DataInputStream fromWorker;
+        private int jobsDone;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        void start() {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            List<String> cmd = new ArrayList<>();
+            cmd.add(java);
+            cmd.add("-Djava.security.manager=allow");
+            cmd.add("-XX:+UseSerialGC");
+            cmd.add("-cp");
+            cmd.add(System.getProperty("java.class.path"));
+            cmd.add("RunnerWorker");
+
+            try {
+                process = new ProcessBuilder(cmd)
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+                toWorker = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+                fromWorker = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+                jobsDone = 0;
+            } catch (IOException e) {
+                System.out.println("[WorkerPool] Failed to start worker " + id + ": " + e.getMessage());
+                process = null;
+            }
+        }
+
+        void stop() {
+            if (process == null) return;
+            try {
+                toWorker.writeInt(RunnerWorker.OP_SHUTDOWN);
+                toWorker.flush();
+            } catch (IOException ignored) {
+                // already gone
+            }
+            process.destroy();
+            process = null;
+        }
+
+        void recycle() {
+            if (process != null) process.destroyForcibly();
+            process = null;
+            if (!closed) start();
+        }
+
+        RunOutcome execute(String classPath, String mainClass,
+                           String input, RunLimits limits) {
+            if (process == null || !process.isAlive()) start();
+            if (process == null)
+                return RunOutcome.error("Worker could not be started.");
+
+            long pid = process.pid();   // recycle() may replace the process
+            DataOutputStream to = toWorker;
+            DataInputStream from = fromWorker;
+            Future<RunOutcome> reply = REPLIES.submit(() -> exchange(to, from, classPath, mainClass, input, limits));
+
+            RunOutcome outcome;
+            try {
+                outcome = reply.get(limits.getTimeoutMillis() + REPLY_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // worker hung, or student code wrote to the real stdout and the
+                // reply we are waiting for will never line up; killing the
+                // worker also unblocks the reader
+                reply.cancel(true);
+                recycle();
+                return RunOutcome.error("Worker did not answer within "
+                        + (limits.getTimeoutMillis() + REPLY_GRACE_MILLIS) + " ms.");
+            } catch (ExecutionException e) {
+                // worker crashed (e.g. OutOfMemoryError, native crash) or broke the protocol
+                recycle();
+                return RunOutcome.error("Worker crashed: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                reply.cancel(true);
+                recycle();
+                Thread.currentThread().interrupt();
+                return RunOutcome.error("Interrupted while waiting for the worker.");
+            }
+
+            jobsDone++;
+            // a job that hit a limit may leave a running thread behind; start clean
+            if (outcome.getStatus() != RunStatus.COMPLETED || jobsDone >= maxJobs) recycle();
+
+            outcome.setPid(pid);
+            return outcome;
+        }
+    }
+
+    // One request/response round trip. Anything the reply does not allow
+    // (unknown status, a string longer than the output limit) is an
+    // IOException: the stream can no longer be trusted.
+    private static RunOutcome exchange(DataOutputStream to, DataInputStream from,
+                                       String classPath, String mainClass,
+                                       String input, RunLimits limits) throws IOException {
+        to.writeInt(RunnerWorker.OP_RUN);
+        RunnerWorker.writeString(to, classPath);
+        RunnerWorker.writeString(to, mainClass);
+        RunnerWorker.writeString(to, input);
+        to.writeLong(limits.getTimeoutMillis());
+        to.writeInt(limits.getOutputLimitBytes());
+        to.flush();
+
+        int ordinal = from.readInt();
+        if (ordinal < 0 || ordinal >= STATUSES.length)
+            throw new IOException("Bad status " + ordinal + " from worker.");
+        int exit = from.readInt();
+        // captured bytes are decoded and re-encoded, so a malformed byte can grow to 3
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, 3L * limits.getOutputLimitBytes());
+        String stdout = RunnerWorker.readString(from, maxBytes);
+        String stderr = RunnerWorker.readString(from, maxBytes);
+        ResourceUsage usage = ResourceUsage.read(from);
+
+        RunOutcome outcome = new RunOutcome(STATUSES[ordinal], exit < 0 ? null : exit, stdout, stderr);
+        outcome.setUsage(usage);
+        return outcome;
+    }
+}
@@ -0,0 +1,136 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compares two results.csv files written by BenchmarkMain (e.g. from the
+ * parent commit and from a change):
+ *
+ *   java -cp benchmarks/target/benchmarks.jar bench.BenchmarkDiff old.csv new.csv
+ *
+ * Rows are matched on benchmark, mode and parameters. A change is marked
+ * with '*' when the two scores are further apart than their combined
+ * error bars, i.e. when it is more than noise.
+ */
+public final class BenchmarkDiff {
+
+    private BenchmarkDiff() { }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: BenchmarkDiff <old results.csv> <new results.csv>");
+            System.exit(2);
+        }
+
+        Map<String, Row> before = read(args[0]);
+        Map<String, Row> after = read(args[1]);
+
+        TreeSet<String> keys = new TreeSet<>(before.keySet());
+        keys.addAll(after.keySet());
+
+        int width = 20;
+        for (String k : keys) width = Math.max(width, k.length());
+        String format = "%-" + width + "s %14s %14s %9s %s%n";
+
+        System.out.printf(format, "Benchmark", "Old", "New", "Change", "");
+        for (String key : keys) {
+            Row o = before.get(key);
+            Row n = after.get(key);
+            if (o == null || n == null) {
+                System.out.printf(format, key, o == null ? "-" : o.text(), n == null ? "-" : n.text(),
+                        o == null ? "added" : "removed", "");
+                continue;
+            }
+
+            double change = (n.score - o.score) / o.score * 100;
+            // unknown error (too few samples) never counts as significant
+            boolean significant = Math.abs(n.score - o.score) > o.error + n.error;
+            System.out.printf(format, key, o.text(), n.text(),
+                    String.format("%+.1f%%", change), significant ? "*" : "");
+        }
+    }
+
+    // key (benchmark [mode] param=value ...) -> row
+    private static Map<String, Row> read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file));
+        if (lines.isEmpty()) throw new IOException(file + " is empty");
+
+        List<String> header = split(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        int error = -1;
+        for (int i = 0; i < header.size(); i++)
+            if (header.get(i).startsWith("Score Error")) error = i;
+        if (benchmark < 0 || score < 0 || unit < 0)
+            throw new IOException(file + " is not a JMH CSV result file");
+
+        Map<String, Row> rows = new TreeMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) continue;
+            List<String> cells = split(line);
+
+            StringBuilder key = new StringBuilder(cells.get(benchmark).replaceFirst("^bench\\.", ""));
+            if (mode >= 0) key.append(" [").append(cells.get(mode)).append(']');
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && i < cells.size() && !cells.get(i).isEmpty())
+                    key.append(' ').append(header.get(i).substring(7)).append('=').append(cells.get(i));
+            }
+
+            Row r = new Row();
+            r.score = Double.parseDouble(cells.get(score));
+            r.error = error < 0 || cells.get(error).isEmpty()
+                    ? Double.NaN : Double.parseDouble(cells.get(error));
+            r.unit = cells.get(unit);
+            rows.put(key.toString(), r);
+        }
+        return rows;
+    }
+
+    // one CSV line as JMH writes it (fields quoted, "" for a quote)
+    private static List<String> split(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private static class Row {
+        double score;
+        double error;
+        String unit;
+
+        String text() {
+            return String.format("%.3f %s", score, unit);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package bench;
+
+import java.io.File;
+import java.util.Collection;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+/**
+ * Entry point of benchmarks.jar. Takes the usual JMH command line (a
+ * benchmark regex, -p students=1000, -f, -wi, ...) and, after the run,
+ * writes the results twice:
+ *
+ *   <out>/results.csv    one row per benchmark and parameter set, sorted;
+ *                        commit it or keep it per commit and compare two
+ *                        of them with BenchmarkDiff
+ *   <out>/results.json   full JMH output (percentiles, raw iterations)
+ *
+ * <out> is target/jmh unless -Dbench.out=<dir> is given.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() { }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListProfilers()
+                || cmd.shouldListResultFormats() || cmd.shouldListWithParams()) {
+            // plain JMH behaviour for the informational switches
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        Collection<RunResult> results = new Runner(cmd).run();
+        if (results.isEmpty()) {
+            System.out.println("[BenchmarkMain] No benchmarks matched.");
+            return;
+        }
+
+        File out = new File(System.getProperty("bench.out", "target/jmh"));
+        if (!out.isDirectory() && !out.mkdirs())
+            throw new IllegalStateException("Cannot create " + out);
+
+        File csv = new File(out, "results.csv");
+        File json = new File(out, "results.json");
+        ResultFormatFactory.getInstance(ResultFormatType.CSV, csv.getPath()).writeOut(results);
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, json.getPath()).writeOut(results);
+        System.out.println("[BenchmarkMain] Wrote " + csv + " and " + json);
+    }
+}
@@ -0,0 +1,237 @@
+package bench;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Writes a synthetic class for grading: N student folders and a suite of
+ * T test case files, all for the "add two numbers" assignment of the
+ * Scenario folder.
+ *
+ *   <out>/submissions/<student>/<Student>.java
+ *   <out>/tests/TC001.txt ...
+ *   <out>/cohort.csv          student,variant (what each student should get)
+ *
+ * Each student is one of these variants (weights set with --mix):
+ *
+ *   correct   prints a + b                                   (like Alice)
+ *   wrong     prints a - b: fails every test                 (like Bob)
+ *   partial   prints ERROR above 1,000,000: fails the large
+ *             inputs (every fifth test)                       (like Sally)
+ *   compile   missing semicolon: compile error                (like Mark)
+ *   slow      correct, but sleeps --slow-ms first
+ *   loop      never finishes: every test hits the timeout
+ *   flood     prints forever: every test hits the output cap
+ *
+ * Variants are assigned by a seeded shuffle, so the same arguments always
+ * produce the same cohort.
+ *
+ *   java -cp benchmarks.jar bench.CohortGenerator --students 500 --tests 40 --out cohort
+ */
+public final class CohortGenerator {
+
+    static final String DEFAULT_MIX = "correct=60,wrong=12,partial=10,compile=8,slow=4,loop=3,flood=3";
+
+    private static final String READ_INPUT =
+            "        Scanner sc = new Scanner(System.in);\n"
+            + "        long a = sc.nextLong();\n"
+            + "        long b = sc.nextLong();\n";
+
+    private final int students;
+    private final int tests;
+    private final Map<String, Integer> mix;
+    private final long seed;
+    private final int slowMillis;
+
+    public CohortGenerator(int students, int tests, Map<String, Integer> mix, long seed, int slowMillis) {
+        if (students < 1 || tests < 1) throw new IllegalArgumentException("Need at least one student and one test.");
+        for (String variant : mix.keySet())
+            if (!isVariant(variant)) throw new IllegalArgumentException("Unknown variant: " + variant);
+        this.students = students;
+        this.tests = tests;
+        this.mix = mix;
+        this.seed = seed;
+        this.slowMillis = slowMillis;
+    }
+
+    public static void main(String[] args) throws Throwable {
+        Map<String, String> opts = Options.parse(args, "students", "tests", "out", "mix", "seed", "slow-ms");
+        if (!opts.containsKey("students") || !opts.containsKey("out")) {
+            System.out.println("Usage: CohortGenerator --students <n> --out <dir> [--tests 40]"
+                    + " [--mix " + DEFAULT_MIX + "] [--seed n] [--slow-ms 200]");
+            System.exit(2);
+        }
+
+        CohortGenerator gen = new CohortGenerator(
+                Integer.parseInt(opts.get("students")),
+                Integer.parseInt(opts.getOrDefault("tests", "40")),
+                parseMix(opts.getOrDefault("mix", DEFAULT_MIX)),
+                Long.parseLong(opts.getOrDefault("seed", String.valueOf(Fixtures.SEED))),
+                Integer.parseInt(opts.getOrDefault("slow-ms", "200")));
+
+        Map<String, Integer> counts = gen.write(Paths.get(opts.get("out")));
+        System.out.println("[CohortGenerator] Wrote " + gen.students + " students, " + gen.tests
+                + " tests to " + opts.get("out") + " " + counts);
+    }
+
+    /** Writes the cohort under `out` (which must not hold an older cohort); returns students per variant. */
+    public Map<String, Integer> write(Path out) throws Throwable {
+        Path submissions = Files.createDirectories(out.resolve("submissions"));
+        Path testDir = Files.createDirectories(out.resolve("tests"));
+
+        writeTests(testDir);
+
+        List<String> variants = assignVariants();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        try (PrintWriter manifest = new PrintWriter(out.resolve("cohort.csv").toFile(), "UTF-8")) {
+            manifest.println("student,variant");
+            for (int i = 0; i < students; i++) {
+                String name = Fixtures.studentName(i);
+                String className = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+                String variant = variants.get(i);
+
+                Path dir = Files.createDirectories(submissions.resolve(name));
+                Files.writeString(dir.resolve(className + ".java"), source(className, variant));
+
+                manifest.println(name + "," + variant);
+                counts.merge(variant, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    // ------------ TEST CASES --------------
+    // Every fifth test uses numbers above 1,000,000 (the "partial" variant's weak spot)
+    private void writeTests(Path dir) throws Throwable {
+        Random rnd = new Random(seed);
+        String width = "%0" + Math.max(3, String.valueOf(tests).length()) + "d";
+        for (int t = 0; t < tests; t++) {
+            boolean large = t % 5 == 4;
+            long a = large ? 1_000_001 + rnd.nextInt(9_000_000) : rnd.nextInt(2001) - 1000;
+            long b = large ? 1_000_001 + rnd.nextInt(9_000_000) : rnd.nextInt(1000) + 1;   // never 0: a - b != a + b
+
+            String title = "TC" + String.format(width, t + 1);
+            Object tc = Grader.newTestCase(title, a + " " + b, String.valueOf(a + b));
+            Grader.saveTestCase(tc, dir.resolve(title + ".txt").toString());
+        }
+    }
+
+    // ------------ VARIANTS --------------
+    private List<String> assignVariants() {
+        int total = 0;
+        for (int w : mix.values()) total += w;
+        if (total <= 0) throw new IllegalArgumentException("The mix needs a positive weight.");
+
+        // exact shares by largest remainder, then a seeded shuffle
+        List<String> variants = new ArrayList<>(students);
+        Map<String, Double> remainders = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> e : mix.entrySet()) {
+            double share = (double) students * e.getValue() / total;
+            for (int i = 0; i < (int) share; i++) variants.add(e.getKey());
+            remainders.put(e.getKey(), share - (int) share);
+        }
+        List<Map.Entry<String, Double>> byRemainder = new ArrayList<>(remainders.entrySet());
+        byRemainder.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        for (int i = 0; variants.size() < students; i++)
+            variants.add(byRemainder.get(i % byRemainder.size()).getKey());
+
+        Collections.shuffle(variants, new Random(seed));
+        return variants;
+    }
+
+    private static boolean isVariant(String v) {
+        switch (v) {
+            case "correct": case "wrong": case "partial": case "compile":
+            case "slow": case "loop": case "flood":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    String source(String className, String variant) {
+        String body;
+        switch (variant) {
+            case "correct":
+                body = READ_INPUT
+                        + "        System.out.println(a + b);\n";
+                break;
+            case "wrong":
+                body = READ_INPUT
+                        + "        System.out.println(a - b);  // WRONG!\n";
+                break;
+            case "partial":
+                body = READ_INPUT
+                        + "        if (a > 1000000 || b > 1000000) {\n"
+                        + "            System.out.println(\"ERROR\"); // Cannot handle large numbers\n"
+                        + "        } else {\n"
+                        + "            System.out.println(a + b);\n"
+                        + "        }\n";
+                break;
+            case "compile":
+                body = READ_INPUT
+                        + "        System.out.println(a + b)\n";
+                break;
+            case "slow":
+                body = READ_INPUT
+                        + "        try {\n"
+                        + "            Thread.sleep(" + slowMillis + ");\n"
+                        + "        } catch (InterruptedException e) {\n"
+                        + "            return;\n"
+                        + "        }\n"
+                        + "        System.out.println(a + b);\n";
+                break;
+            case "loop":
+                body = READ_INPUT
+                        + "        long sum = a;\n"
+                        + "        while (true) {\n"
+                        + "            sum += b;   // never terminates\n"
+                        + "        }\n";
+                break;
+            case "flood":
+                body = READ_INPUT
+                        + "        while (true) {\n"
+                        + "            System.out.println(a + b);\n"
+                        + "        }\n";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown variant: " + variant);
+        }
+
+        return "import java.util.*;\n"
+                + "\n"
+                + "class " + className + " {\n"
+                + "    public static void main(String[] args) {\n"
+                + body
+                + "    }\n"
+                + "}\n";
+    }
+
+    // "correct=60,wrong=12" -> {correct=60, wrong=12}
+    static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split("=");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad mix entry: " + part);
+            mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+
+    static File testsDir(Path out) {
+        return out.resolve("tests").toFile();
+    }
+
+    static String submissionsDir(Path out) {
+        return out.resolve("submissions").toString();
+    }
+}
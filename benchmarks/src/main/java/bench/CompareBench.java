@@ -0,0 +1,73 @@
+package bench;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coordinator.compareResults: the two-file comparison and the N-way trend
+ * over five resubmission rounds, each read from saved files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CompareBench {
+
+    static final int TESTS = 40;
+    static final int ROUNDS = 5;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int students;
+
+    private Path dir;
+    private Object coordinator;
+    private List<String> files;
+
+    @Setup
+    public void setup() throws Throwable {
+        Fixtures.quietStdout();
+        dir = Fixtures.tempDir("compare");
+        coordinator = Grader.newCoordinator();
+
+        Object rfm = Grader.newResultFileManager();
+        files = new ArrayList<>();
+        for (int r = 0; r < ROUNDS; r++) {
+            String path = dir.resolve("round" + (r + 1) + ".tsr").toString();
+            if (!Grader.saveResult(rfm, Fixtures.syntheticResult(students, TESTS, r), path))
+                throw new IllegalStateException("save failed");
+            files.add(path);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Fixtures.deleteTree(dir);
+    }
+
+    @Benchmark
+    public List<?> compareTwo() throws Throwable {
+        return Grader.compareResults(coordinator, files.get(0), files.get(1));
+    }
+
+    @Benchmark
+    public List<?> compareRounds() throws Throwable {
+        return Grader.compareResults(coordinator, files);
+    }
+}
@@ -0,0 +1,65 @@
+package bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ListOfPrograms.generatePrograms over a synthetic submission tree.
+ * "cold" scans with a fresh ListOfPrograms every call (first scan of a
+ * folder); "warm" reuses one, and with it its scan cache (rescanning an
+ * unchanged folder).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DiscoveryBench {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int students;
+
+    @Param({"cold", "warm"})
+    public String scanCache;
+
+    private Path root;
+    private Object list;
+
+    @Setup(Level.Trial)
+    public void createTree() throws Exception {
+        root = Fixtures.writeSubmissionTree(students);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetScanCache() throws Throwable {
+        if (list == null || scanCache.equals("cold")) list = Grader.newListOfPrograms();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTree() throws Exception {
+        Fixtures.deleteTree(root);
+    }
+
+    @Benchmark
+    public int generatePrograms() throws Throwable {
+        Grader.generatePrograms(list, root.toString());
+        int found = Grader.programs(list).size();
+        if (found != students) throw new IllegalStateException("found " + found + " of " + students);
+        return found;
+    }
+}
@@ -0,0 +1,110 @@
+package bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Synthetic inputs for the benchmarks: submission trees and saved results.
+ * Everything is generated from a fixed seed, so two runs (or two commits)
+ * measure exactly the same data.
+ */
+final class Fixtures {
+
+    static final long SEED = 2043;
+
+    // Reads one int, prints its square; small enough that a run is all JVM startup
+    static final String MAIN_SOURCE =
+            "import java.util.Scanner;\n"
+            + "\n"
+            + "public class Main {\n"
+            + "    public static void main(String[] args) {\n"
+            + "        int n = new Scanner(System.in).nextInt();\n"
+            + "        System.out.println(Helper.square(n));\n"
+            + "    }\n"
+            + "}\n";
+
+    static final String HELPER_SOURCE =
+            "public class Helper {\n"
+            + "    static int square(int n) {\n"
+            + "        return n * n;\n"
+            + "    }\n"
+            + "}\n";
+
+    private Fixtures() { }
+
+    static Path tempDir(String prefix) throws IOException {
+        return Files.createTempDirectory("grader-bench-" + prefix);
+    }
+
+    /** One student folder with Helper.java and Main.java (main in the second file scanned). */
+    static Path writeStudent(Path root, String name) throws IOException {
+        Path dir = Files.createDirectories(root.resolve(name));
+        Files.writeString(dir.resolve("Helper.java"), HELPER_SOURCE);
+        Files.writeString(dir.resolve("Main.java"), MAIN_SOURCE);
+        return dir;
+    }
+
+    /** `students` student folders under a new temp directory. */
+    static Path writeSubmissionTree(int students) throws IOException {
+        Path root = tempDir("tree");
+        for (int i = 0; i < students; i++) writeStudent(root, studentName(i));
+        return root;
+    }
+
+    static String studentName(int i) {
+        return String.format("student%05d", i);
+    }
+
+    static String testTitle(int i) {
+        return "Test " + (i + 1);
+    }
+
+    /**
+     * A TestSuiteResult with `students` students and `tests` tests each.
+     * Round r shifts the pass rate a little, like a later resubmission;
+     * about 5% of students did not compile and 5% are missing.
+     */
+    static Object syntheticResult(int students, int tests, int round) throws Throwable {
+        Random rnd = new Random(SEED + round);
+        Object tsr = Grader.newTestSuiteResult("Benchmark Suite");
+        for (int t = 0; t < tests; t++)
+            Grader.setTestFingerprint(tsr, testTitle(t), Long.toHexString(rnd.nextLong()));
+
+        double passRate = Math.min(0.95, 0.55 + 0.1 * round);
+        for (int s = 0; s < students; s++) {
+            int roll = rnd.nextInt(20);
+            if (roll == 0) continue;   // no submission this round
+
+            Object sr = Grader.newStudentResult(studentName(s));
+            if (roll == 1) {
+                Grader.setCompileFailed(sr);
+            } else {
+                for (int t = 0; t < tests; t++)
+                    Grader.setOutcome(sr, testTitle(t), rnd.nextDouble() < passRate);
+            }
+            Grader.addStudentResult(tsr, sr);
+        }
+        return tsr;
+    }
+
+    /**
+     * Drops the grader's progress lines ("Saved TestSuiteResult to ...") in
+     * the benchmark fork; printing them would measure the console, not us.
+     */
+    static void quietStdout() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static void deleteTree(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) return;
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package bench;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Bridge to the grader's classes.
+ *
+ * The grader lives in the unnamed package, which code in a named package
+ * cannot name, and JMH refuses benchmarks in the unnamed package. So the
+ * classes are looked up by name once, and each method used by a benchmark
+ * becomes a constant MethodHandle with the grader's types erased to Object.
+ * invokeExact on a static final handle is inlined by the JIT, so the bridge
+ * adds nothing measurable to what is being measured.
+ */
+final class Grader {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+    private static final MethodHandle TESTCASE_NEW = ctor("TestCase", String.class, String.class, String.class);
+    private static final MethodHandle TESTCASE_PARSE = staticMethod("TestCase", "parseFromFile", "TestCase", File.class);
+    private static final MethodHandle TESTCASE_SAVE = virtual("TestCase", "saveToFile", void.class, String.class);
+    private static final MethodHandle TESTCASE_TITLE = virtual("TestCase", "getTitle", String.class);
+    private static final MethodHandle TESTCASE_COMPARE = virtual("TestCase", "compareOutput", boolean.class, String.class);
+
+    private static final MethodHandle PROGRAMS_NEW = ctor("ListOfPrograms");
+    private static final MethodHandle PROGRAMS_GENERATE = virtual("ListOfPrograms", "generatePrograms", void.class, String.class);
+    private static final MethodHandle PROGRAMS_GET = virtual("ListOfPrograms", "getPrograms", List.class);
+
+    private static final MethodHandle PROGRAM_NEW = ctor("Program", String.class, String.class, String.class);
+    private static final MethodHandle PROGRAM_COMPILE = virtual("Program", "compileAndReturnErrors", String.class);
+    private static final MethodHandle PROGRAM_RUN = virtual("Program", "run", String.class, String.class);
+
+    private static final MethodHandle RFM_NEW = ctor("ResultFileManager");
+    private static final MethodHandle RFM_SAVE = virtual("ResultFileManager", "saveResult", boolean.class, "TestSuiteResult", String.class);
+    private static final MethodHandle RFM_LOAD = virtual("ResultFileManager", "loadResult", "TestSuiteResult", String.class);
+
+    private static final MethodHandle TSR_NEW = ctor("TestSuiteResult", String.class);
+    private static final MethodHandle TSR_FINGERPRINT = virtual("TestSuiteResult", "setTestFingerprint", void.class, String.class, String.class);
+    private static final MethodHandle TSR_ADD = virtual("TestSuiteResult", "addStudentResult", void.class, "StudentResult");
+    private static final MethodHandle TSR_NAMES = virtual("TestSuiteResult", "getAllStudentNames", Set.class);
+
+    private static final MethodHandle SR_NEW = ctor("StudentResult", String.class);
+    private static final MethodHandle SR_OUTCOME = virtual("StudentResult", "setOutcome", void.class, String.class, boolean.class);
+    private static final MethodHandle SR_COMPILE_FAILED = virtual("StudentResult", "setCompileFailed", void.class);
+
+    private static final MethodHandle COORDINATOR_NEW = ctor("Coordinator");
+    private static final MethodHandle COORDINATOR_COMPARE = virtual("Coordinator", "compareResults", List.class, String.class, String.class);
+    private static final MethodHandle COORDINATOR_COMPARE_N = virtual("Coordinator", "compareResults", List.class, List.class);
+    private static final MethodHandle COORDINATOR_CREATE_SUITE = virtual("Coordinator", "createTestSuite", void.class, String.class);
+    private static final MethodHandle COORDINATOR_LOAD_CASE = virtual("Coordinator", "loadTestCaseFromFile", "TestCase", File.class);
+    private static final MethodHandle COORDINATOR_ADD_CASE = virtual("Coordinator", "addTestCaseToSuite", void.class, String.class);
+    private static final MethodHandle COORDINATOR_PARALLELISM = virtual("Coordinator", "setParallelism", void.class, int.class);
+    private static final MethodHandle COORDINATOR_COMPILE_PARALLELISM = virtual("Coordinator", "setCompileParallelism", void.class, int.class);
+    private static final MethodHandle COORDINATOR_MODE = virtual("Coordinator", "setExecutionMode", void.class, "ExecutionMode");
+    private static final MethodHandle COORDINATOR_LIMITS = virtual("Coordinator", "setRunLimits", void.class, long.class, int.class);
+    private static final MethodHandle COORDINATOR_RUN = virtual("Coordinator", "runTestSuite", "ExecutionReport", String.class, String.class, "GradingListener");
+    private static final MethodHandle COORDINATOR_SAVE = virtual("Coordinator", "saveTestSuiteResult", boolean.class, "TestSuiteResult", String.class);
+    private static final MethodHandle COORDINATOR_SHUTDOWN = virtual("Coordinator", "shutdownWorkerPool", void.class);
+
+    private static final MethodHandle REPORT_RESULT = virtual("ExecutionReport", "getSuiteResult", "TestSuiteResult");
+    private static final MethodHandle REPORT_RUN = virtual("ExecutionReport", "getExecutionsRun", int.class);
+
+    private static final MethodHandle RESULT_STUDENT = virtual("Result", "getProgramName", String.class);
+    private static final MethodHandle RESULT_TITLE = virtual("Result", "getTestCaseTitle", String.class);
+
+    private static final MethodHandle TSR_STUDENT = virtual("TestSuiteResult", "getStudentResult", "StudentResult", String.class);
+    private static final MethodHandle SR_DID_COMPILE_FAIL = virtual("StudentResult", "didCompileFail", boolean.class);
+    private static final MethodHandle SR_PASSED = virtual("StudentResult", "getPassedCount", int.class);
+    private static final MethodHandle SR_GRADED = virtual("StudentResult", "getGradedCount", int.class);
+
+    private static final MethodHandle CACHE_SHARED = staticMethod("CompileCache", "shared", "CompileCache");
+    private static final MethodHandle CACHE_ENABLED = virtual("CompileCache", "setEnabled", void.class, boolean.class);
+    private static final MethodHandle CACHE_DIRECTORY = virtual("CompileCache", "setDirectory", void.class, Path.class);
+
+    private Grader() { }
+
+    // ------------ TestCase --------------
+    static Object newTestCase(String title, String input, String expected) throws Throwable {
+        return (Object) TESTCASE_NEW.invokeExact(title, input, expected);
+    }
+
+    static Object parseTestCase(File file) throws Throwable {
+        return (Object) TESTCASE_PARSE.invokeExact(file);
+    }
+
+    static void saveTestCase(Object testCase, String file) throws Throwable {
+        TESTCASE_SAVE.invokeExact(testCase, file);
+    }
+
+    static boolean compareOutput(Object testCase, String actual) throws Throwable {
+        return (boolean) TESTCASE_COMPARE.invokeExact(testCase, actual);
+    }
+
+    // ------------ Discovery --------------
+    static Object newListOfPrograms() throws Throwable {
+        return (Object) PROGRAMS_NEW.invokeExact();
+    }
+
+    static void generatePrograms(Object list, String root) throws Throwable {
+        PROGRAMS_GENERATE.invokeExact(list, root);
+    }
+
+    static List<?> programs(Object list) throws Throwable {
+        return (List<?>) PROGRAMS_GET.invokeExact(list);
+    }
+
+    // ------------ Program --------------
+    static Object newProgram(String name, String folder, String mainFile) throws Throwable {
+        return (Object) PROGRAM_NEW.invokeExact(name, folder, mainFile);
+    }
+
+    static String compile(Object program) throws Throwable {
+        return (String) PROGRAM_COMPILE.invokeExact(program);
+    }
+
+    static String run(Object program, String input) throws Throwable {
+        return (String) PROGRAM_RUN.invokeExact(program, input);
+    }
+
+    // Keeps benchmark compiles out of the user's compile cache
+    static void useCompileCache(boolean enabled, Path directory) throws Throwable {
+        Object cache = (Object) CACHE_SHARED.invokeExact();
+        CACHE_DIRECTORY.invokeExact(cache, directory);
+        CACHE_ENABLED.invokeExact(cache, enabled);
+    }
+
+    // ------------ Results --------------
+    static Object newResultFileManager() throws Throwable {
+        return (Object) RFM_NEW.invokeExact();
+    }
+
+    static boolean saveResult(Object rfm, Object result, String path) throws Throwable {
+        return (boolean) RFM_SAVE.invokeExact(rfm, result, path);
+    }
+
+    static Object loadResult(Object rfm, String path) throws Throwable {
+        return (Object) RFM_LOAD.invokeExact(rfm, path);
+    }
+
+    static Object newTestSuiteResult(String suiteName) throws Throwable {
+        return (Object) TSR_NEW.invokeExact(suiteName);
+    }
+
+    static void setTestFingerprint(Object result, String title, String fingerprint) throws Throwable {
+        TSR_FINGERPRINT.invokeExact(result, title, fingerprint);
+    }
+
+    static void addStudentResult(Object result, Object student) throws Throwable {
+        TSR_ADD.invokeExact(result, student);
+    }
+
+    static int studentCount(Object result) throws Throwable {
+        return studentNames(result).size();
+    }
+
+    static Object newStudentResult(String name) throws Throwable {
+        return (Object) SR_NEW.invokeExact(name);
+    }
+
+    static void setOutcome(Object student, String test, boolean passed) throws Throwable {
+        SR_OUTCOME.invokeExact(student, test, passed);
+    }
+
+    static void setCompileFailed(Object student) throws Throwable {
+        SR_COMPILE_FAILED.invokeExact(student);
+    }
+
+    // ------------ Coordinator --------------
+    static Object newCoordinator() throws Throwable {
+        return (Object) COORDINATOR_NEW.invokeExact();
+    }
+
+    static List<?> compareResults(Object coordinator, String file1, String file2) throws Throwable {
+        return (List<?>) COORDINATOR_COMPARE.invokeExact(coordinator, file1, file2);
+    }
+
+    static List<?> compareResults(Object coordinator, List<String> files) throws Throwable {
+        return (List<?>) COORDINATOR_COMPARE_N.invokeExact(coordinator, files);
+    }
+
+    static void createTestSuite(Object coordinator, String title) throws Throwable {
+        COORDINATOR_CREATE_SUITE.invokeExact(coordinator, title);
+    }
+
+    // Loads a test case file and adds it to the current suite; false if invalid
+    static boolean addTestCaseFile(Object coordinator, File file) throws Throwable {
+        Object tc = (Object) COORDINATOR_LOAD_CASE.invokeExact(coordinator, file);
+        if (tc == null) return false;
+        COORDINATOR_ADD_CASE.invokeExact(coordinator, (String) TESTCASE_TITLE.invokeExact(tc));
+        return true;
+    }
+
+    static void setParallelism(Object coordinator, int parallelism) throws Throwable {
+        COORDINATOR_PARALLELISM.invokeExact(coordinator, parallelism);
+    }
+
+    static void setCompileParallelism(Object coordinator, int parallelism) throws Throwable {
+        COORDINATOR_COMPILE_PARALLELISM.invokeExact(coordinator, parallelism);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void setExecutionMode(Object coordinator, String mode) throws Throwable {
+        Object value = Enum.valueOf((Class) type("ExecutionMode"), mode.toUpperCase());
+        COORDINATOR_MODE.invokeExact(coordinator, value);
+    }
+
+    static void setRunLimits(Object coordinator, long timeoutMillis, int outputLimitBytes) throws Throwable {
+        COORDINATOR_LIMITS.invokeExact(coordinator, timeoutMillis, outputLimitBytes);
+    }
+
+    static Object runTestSuite(Object coordinator, String suite, String folder, Object listener) throws Throwable {
+        return (Object) COORDINATOR_RUN.invokeExact(coordinator, suite, folder, listener);
+    }
+
+    static boolean saveTestSuiteResult(Object coordinator, Object result, String path) throws Throwable {
+        return (boolean) COORDINATOR_SAVE.invokeExact(coordinator, result, path);
+    }
+
+    static void shutdownWorkerPool(Object coordinator) throws Throwable {
+        COORDINATOR_SHUTDOWN.invokeExact(coordinator);
+    }
+
+    // ------------ Run output --------------
+    static Object suiteResult(Object report) throws Throwable {
+        return (Object) REPORT_RESULT.invokeExact(report);
+    }
+
+    static int executionsRun(Object report) throws Throwable {
+        return (int) REPORT_RUN.invokeExact(report);
+    }
+
+    static String resultStudent(Object result) throws Throwable {
+        return (String) RESULT_STUDENT.invokeExact(result);
+    }
+
+    static String resultTitle(Object result) throws Throwable {
+        return (String) RESULT_TITLE.invokeExact(result);
+    }
+
+    static Object studentResult(Object suiteResult, String name) throws Throwable {
+        return (Object) TSR_STUDENT.invokeExact(suiteResult, name);
+    }
+
+    static Set<?> studentNames(Object suiteResult) throws Throwable {
+        return (Set<?>) TSR_NAMES.invokeExact(suiteResult);
+    }
+
+    static boolean didCompileFail(Object student) throws Throwable {
+        return (boolean) SR_DID_COMPILE_FAIL.invokeExact(student);
+    }
+
+    static boolean passedAll(Object student) throws Throwable {
+        return (int) SR_PASSED.invokeExact(student) == (int) SR_GRADED.invokeExact(student);
+    }
+
+    /**
+     * A GradingListener that hands every event to `events` as (name, args),
+     * e.g. ("testFinished", [result]). Events arrive on the engine's threads.
+     */
+    static Object gradingListener(BiConsumer<String, Object[]> events) throws ClassNotFoundException {
+        Class<?> type = type("GradingListener");
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "studentDiscovered":
+                case "discoveryFinished":
+                case "studentCompiled":
+                case "testStarted":
+                case "testFinished":
+                case "studentFinished":
+                    events.accept(method.getName(), args);
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "GradingListener(bench)";
+                default:
+                    // andThen and anything added later keep their default behaviour
+                    return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+        });
+    }
+
+    // ------------ LOOKUP --------------
+    // Parameter and return types are Class objects or names of grader classes
+
+    private static MethodHandle ctor(String owner, Object... params) {
+        try {
+            MethodHandle mh = LOOKUP.findConstructor(type(owner), MethodType.methodType(void.class, types(params)));
+            return erase(mh);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle virtual(String owner, String name, Object ret, Object... params) {
+        try {
+            return erase(LOOKUP.findVirtual(type(owner), name, MethodType.methodType(type(ret), types(params))));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle staticMethod(String owner, String name, Object ret, Object... params) {
+        try {
+            return erase(LOOKUP.findStatic(type(owner), name, MethodType.methodType(type(ret), types(params))));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // grader types (unnamed package) become Object; JDK types stay as they are
+    private static MethodHandle erase(MethodHandle mh) {
+        MethodType t = mh.type();
+        for (int i = 0; i < t.parameterCount(); i++)
+            if (isGraderType(t.parameterType(i))) t = t.changeParameterType(i, Object.class);
+        if (isGraderType(t.returnType())) t = t.changeReturnType(Object.class);
+        return mh.asType(t);
+    }
+
+    private static boolean isGraderType(Class<?> c) {
+        return !c.isPrimitive() && !c.isArray() && c.getPackageName().isEmpty();
+    }
+
+    private static Class<?>[] types(Object[] specs) throws ClassNotFoundException {
+        Class<?>[] out = new Class<?>[specs.length];
+        for (int i = 0; i < specs.length; i++) out[i] = type(specs[i]);
+        return out;
+    }
+
+    private static Class<?> type(Object spec) throws ClassNotFoundException {
+        return spec instanceof Class ? (Class<?>) spec : Class.forName((String) spec);
+    }
+}
@@ -0,0 +1,28 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** "--name value" command lines of the bench tools (same style as GraderCli). */
+final class Options {
+
+    private Options() { }
+
+    static Map<String, String> parse(String[] args, String... names) {
+        List<String> known = Arrays.asList(names);
+        Map<String, String> opts = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--"))
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            String key = args[i].substring(2);
+            if (!known.contains(key))
+                throw new IllegalArgumentException("Unknown option: --" + key);
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for --" + key);
+            opts.put(key, args[++i]);
+        }
+        return opts;
+    }
+}
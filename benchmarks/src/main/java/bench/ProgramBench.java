@@ -0,0 +1,78 @@
+package bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Program.compileAndReturnErrors and Program.run for one two-file
+ * submission. Both are dominated by javac and JVM startup, so iterations
+ * are few and long. The compile cache lives in a temp directory; for
+ * compiling, "miss" disables it so every call really compiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ProgramBench {
+
+    private Path root;
+    private Path cacheDir;
+    private Object program;
+
+    @Setup
+    public void setup() throws Throwable {
+        root = Fixtures.tempDir("program");
+        cacheDir = Fixtures.tempDir("compile-cache");
+        Path dir = Fixtures.writeStudent(root, Fixtures.studentName(0));
+        program = Grader.newProgram("student", dir.toString(), dir.resolve("Main.java").toString());
+
+        Grader.useCompileCache(true, cacheDir);
+        String error = Grader.compile(program);   // class files for run(), cache entry for "hit"
+        if (error != null) throw new IllegalStateException(error);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Fixtures.deleteTree(root);
+        Fixtures.deleteTree(cacheDir);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Cache {
+
+        @Param({"miss", "hit"})
+        public String compileCache;
+
+        @Setup
+        public void setup(ProgramBench bench) throws Throwable {
+            Grader.useCompileCache(compileCache.equals("hit"), bench.cacheDir);
+        }
+    }
+
+    @Benchmark
+    public String compileAndReturnErrors(Cache cache) throws Throwable {
+        return Grader.compile(program);
+    }
+
+    @Benchmark
+    public String run() throws Throwable {
+        String out = Grader.run(program, "12");
+        if (!"144".equals(out)) throw new IllegalStateException("unexpected output: " + out);
+        return out;
+    }
+}
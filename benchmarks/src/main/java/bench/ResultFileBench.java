@@ -0,0 +1,65 @@
+package bench;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** ResultFileManager.saveResult / loadResult for one class of `students` x 40 tests. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ResultFileBench {
+
+    static final int TESTS = 40;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int students;
+
+    private Path dir;
+    private Object rfm;
+    private Object result;
+    private String savePath;
+    private String loadPath;
+
+    @Setup
+    public void setup() throws Throwable {
+        Fixtures.quietStdout();
+        dir = Fixtures.tempDir("results");
+        rfm = Grader.newResultFileManager();
+        result = Fixtures.syntheticResult(students, TESTS, 0);
+
+        savePath = dir.resolve("saved.tsr").toString();
+        loadPath = dir.resolve("load.tsr").toString();
+        if (!Grader.saveResult(rfm, result, loadPath)) throw new IllegalStateException("save failed");
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Fixtures.deleteTree(dir);
+    }
+
+    @Benchmark
+    public boolean save() throws Throwable {
+        return Grader.saveResult(rfm, result, savePath);
+    }
+
+    @Benchmark
+    public Object load() throws Throwable {
+        return Grader.loadResult(rfm, loadPath);
+    }
+}
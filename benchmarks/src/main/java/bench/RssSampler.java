@@ -0,0 +1,87 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Peak resident memory of this JVM plus every process it started (student
+ * programs, worker JVMs), sampled from /proc every few milliseconds while
+ * grading runs. Linux only; elsewhere every figure is -1.
+ *
+ * The tree figure is a sampled sum, so very short-lived children can be
+ * missed; peakSelfKb() is the kernel's exact high-water mark (VmHWM) for
+ * the grading JVM alone.
+ */
+final class RssSampler implements AutoCloseable {
+
+    private static final long PERIOD_MS = 20;
+
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile long peakTreeKb = -1;
+
+    RssSampler() {
+        thread = new Thread(this::sample, "rss-sampler");
+        thread.setDaemon(true);
+        if (supported()) thread.start();
+    }
+
+    static boolean supported() {
+        return Files.isReadable(Paths.get("/proc/self/status"));
+    }
+
+    long peakTreeKb() {
+        return peakTreeKb;
+    }
+
+    /** Kernel high-water mark of this JVM since it started. */
+    static long peakSelfKb() {
+        return statusField(Paths.get("/proc/self/status"), "VmHWM:");
+    }
+
+    private void sample() {
+        while (running) {
+            long total = rssKb(ProcessHandle.current().pid());
+            if (total >= 0) {
+                for (ProcessHandle child : (Iterable<ProcessHandle>) ProcessHandle.current().descendants()::iterator) {
+                    long kb = rssKb(child.pid());
+                    if (kb > 0) total += kb;
+                }
+                if (total > peakTreeKb) peakTreeKb = total;
+            }
+            try {
+                Thread.sleep(PERIOD_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static long rssKb(long pid) {
+        return statusField(Paths.get("/proc", String.valueOf(pid), "status"), "VmRSS:");
+    }
+
+    // "VmRSS:     12345 kB" -> 12345; -1 if missing (or the process is gone)
+    private static long statusField(Path status, String field) {
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith(field)) {
+                    String value = line.substring(field.length()).trim();
+                    return Long.parseLong(value.substring(0, value.indexOf(' ')));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // not Linux, or the process exited between listing and reading
+        }
+        return -1;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        if (thread.isAlive()) thread.join();
+    }
+}
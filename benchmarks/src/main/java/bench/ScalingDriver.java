@@ -0,0 +1,308 @@
+package bench;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * End-to-end scaling run: for each cohort size, generates a class with
+ * CohortGenerator, grades it through Coordinator exactly like GraderCli
+ * does, saves the result, and reports
+ *
+ *   wall time, tests/sec, students/sec, ms per student
+ *   phases     discovery done, last compile done, last test done (ms since
+ *              start; the pipeline overlaps them), summed and p50/p95 test
+ *              time, result save time
+ *   memory     peak RSS of the grader JVM plus its child processes
+ *   sanity     students whose outcome does not match their variant
+ *
+ * One CSV row per size goes to --out (default target/scaling/scaling.csv).
+ * Each size gets an empty compile cache, so every compile is real.
+ *
+ *   java -cp benchmarks/target/benchmarks.jar bench.ScalingDriver --sizes 10,100,500 --tests 40
+ */
+public final class ScalingDriver {
+
+    private static final String CSV_HEADER = "students,tests,mode,wall_ms,executions,tests_per_sec,"
+            + "students_per_sec,ms_per_student,discovery_ms,compile_done_ms,tests_done_ms,"
+            + "test_time_sum_ms,test_p50_ms,test_p95_ms,save_ms,peak_tree_rss_mb,grader_hwm_mb,"
+            + "compile_errors,passed_all,mismatches";
+
+    private ScalingDriver() { }
+
+    public static void main(String[] args) throws Throwable {
+        Map<String, String> opts;
+        try {
+            opts = Options.parse(args, "sizes", "tests", "mode", "parallelism", "compile-parallelism",
+                    "timeout", "output-limit", "mix", "slow-ms", "work", "out");
+        } catch (IllegalArgumentException e) {
+            System.out.println("[ScalingDriver] " + e.getMessage());
+            System.out.println("Usage: ScalingDriver [--sizes 10,50,100,500] [--tests 40] [--mode FORK]"
+                    + " [--parallelism n] [--compile-parallelism n] [--timeout 2000] [--output-limit 65536]"
+                    + " [--mix " + CohortGenerator.DEFAULT_MIX + "] [--slow-ms 200] [--work dir] [--out file.csv]");
+            System.exit(2);
+            return;
+        }
+
+        int[] sizes = Arrays.stream(opts.getOrDefault("sizes", "10,50,100,500").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+        int tests = Integer.parseInt(opts.getOrDefault("tests", "40"));
+        String mode = opts.getOrDefault("mode", "FORK").toUpperCase();
+        Map<String, Integer> mix = CohortGenerator.parseMix(opts.getOrDefault("mix", CohortGenerator.DEFAULT_MIX));
+        int slowMillis = Integer.parseInt(opts.getOrDefault("slow-ms", "200"));
+
+        Path work = opts.containsKey("work") ? Files.createDirectories(Paths.get(opts.get("work")))
+                : Fixtures.tempDir("scaling");
+        File csv = new File(opts.getOrDefault("out", "target/scaling/scaling.csv"));
+        if (csv.getParentFile() != null) csv.getParentFile().mkdirs();
+
+        boolean header = !csv.exists() || csv.length() == 0;
+        try (PrintWriter out = new PrintWriter(new FileWriter(csv, true))) {
+            if (header) out.println(CSV_HEADER);
+
+            System.out.printf("%8s %9s %10s %9s %9s %9s %9s %9s %8s %8s %6s%n",
+                    "students", "wall s", "tests/s", "ms/stud", "discov", "compiled", "tested",
+                    "p95 test", "save", "RSS MB", "bad");
+
+            for (int size : sizes) {
+                Path cohort = work.resolve("cohort-" + size);
+                Fixtures.deleteTree(cohort);
+                new CohortGenerator(size, tests, mix, Fixtures.SEED, slowMillis).write(cohort);
+
+                Row row = grade(cohort, size, tests, mode, opts);
+                out.println(row.csv());
+                out.flush();
+                System.out.printf("%8d %9.1f %10.1f %9.1f %9d %9d %9d %9.1f %8d %8s %6d%n",
+                        size, row.wallMs / 1000.0, row.testsPerSec(), row.msPerStudent(),
+                        row.discoveryMs, row.compileDoneMs, row.testsDoneMs, row.testP95Ms,
+                        row.saveMs, row.peakTreeMb(), row.mismatches);
+
+                Fixtures.deleteTree(cohort);
+            }
+        } finally {
+            if (!opts.containsKey("work")) Fixtures.deleteTree(work);
+        }
+        System.out.println("[ScalingDriver] Wrote " + csv);
+    }
+
+    // ------------ ONE SIZE --------------
+    private static Row grade(Path cohort, int size, int tests, String mode, Map<String, String> opts)
+            throws Throwable {
+
+        Path compileCache = Fixtures.tempDir("scaling-cache");
+        Object coordinator = Grader.newCoordinator();
+        try {
+            Grader.useCompileCache(true, compileCache);
+            Grader.setExecutionMode(coordinator, mode);
+            if (opts.containsKey("parallelism"))
+                Grader.setParallelism(coordinator, Integer.parseInt(opts.get("parallelism")));
+            if (opts.containsKey("compile-parallelism"))
+                Grader.setCompileParallelism(coordinator, Integer.parseInt(opts.get("compile-parallelism")));
+            // misbehaving variants are bounded by these, so keep them tight
+            Grader.setRunLimits(coordinator,
+                    Long.parseLong(opts.getOrDefault("timeout", "2000")),
+                    Integer.parseInt(opts.getOrDefault("output-limit", "65536")));
+
+            String suite = "Scaling " + size;
+            Grader.createTestSuite(coordinator, suite);
+            File[] caseFiles = CohortGenerator.testsDir(cohort).listFiles(File::isFile);
+            Arrays.sort(caseFiles);
+            for (File f : caseFiles)
+                if (!Grader.addTestCaseFile(coordinator, f)) throw new IllegalStateException("Bad test case " + f);
+
+            Row row = new Row(size, tests, mode);
+            Phases phases = new Phases();
+            Object report;
+            try (RssSampler rss = new RssSampler()) {
+                report = Grader.runTestSuite(coordinator, suite,
+                        CohortGenerator.submissionsDir(cohort), Grader.gradingListener(phases));
+                row.wallMs = phases.sinceStart();
+                row.peakTreeKb = rss.peakTreeKb();
+            }
+            row.graderHwmKb = RssSampler.peakSelfKb();
+            row.executions = Grader.executionsRun(report);
+            phases.fill(row);
+
+            Object result = Grader.suiteResult(report);
+            long saveStart = System.nanoTime();
+            Grader.saveTestSuiteResult(coordinator, result, cohort.resolve("result.tsr").toString());
+            row.saveMs = (System.nanoTime() - saveStart) / 1_000_000;
+
+            check(cohort, result, row);
+            return row;
+        } finally {
+            Grader.shutdownWorkerPool(coordinator);
+            Fixtures.deleteTree(compileCache);
+        }
+    }
+
+    // compares each student's outcome with what its variant should produce
+    private static void check(Path cohort, Object result, Row row) throws Throwable {
+        Map<String, String> variants = new HashMap<>();
+        List<String> lines = Files.readAllLines(cohort.resolve("cohort.csv"));
+        for (String line : lines.subList(1, lines.size())) {
+            String[] kv = line.split(",");
+            variants.put(kv[0], kv[1]);
+        }
+
+        for (Map.Entry<String, String> e : variants.entrySet()) {
+            Object sr = Grader.studentResult(result, e.getKey());
+            if (sr == null) {
+                row.mismatches++;
+                continue;
+            }
+            boolean compileFailed = Grader.didCompileFail(sr);
+            boolean passedAll = !compileFailed && Grader.passedAll(sr);
+            if (compileFailed) row.compileErrors++;
+            if (passedAll) row.passedAll++;
+
+            boolean expected;
+            switch (e.getValue()) {
+                case "correct":
+                case "slow":
+                    expected = passedAll;
+                    break;
+                case "compile":
+                    expected = compileFailed;
+                    break;
+                default:
+                    expected = !compileFailed && !passedAll;
+            }
+            if (!expected) row.mismatches++;
+        }
+    }
+
+    // ------------ PHASES (from the grading events) --------------
+    private static final class Phases implements BiConsumer<String, Object[]> {
+        private final long start = System.nanoTime();
+        private final Map<String, Long> running = new ConcurrentHashMap<>();
+        private final ConcurrentLinkedQueue<Long> testNanos = new ConcurrentLinkedQueue<>();
+        private volatile long discoveryDone;
+        private volatile long lastCompiled;
+        private volatile long lastTestDone;
+
+        @Override
+        public void accept(String event, Object[] args) {
+            long now = System.nanoTime();
+            try {
+                switch (event) {
+                    case "discoveryFinished":
+                        discoveryDone = now;
+                        break;
+                    case "studentCompiled":
+                        lastCompiled = Math.max(lastCompiled, now);
+                        break;
+                    case "testStarted":
+                        running.put(args[0] + "\n" + args[1], now);
+                        break;
+                    case "testFinished":
+                        Long began = running.remove(Grader.resultStudent(args[0]) + "\n" + Grader.resultTitle(args[0]));
+                        if (began != null) testNanos.add(now - began);
+                        lastTestDone = Math.max(lastTestDone, now);
+                        break;
+                    default:
+                        break;
+                }
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        long sinceStart() {
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+
+        void fill(Row row) {
+            row.discoveryMs = millisSinceStart(discoveryDone);
+            row.compileDoneMs = millisSinceStart(lastCompiled);
+            row.testsDoneMs = millisSinceStart(lastTestDone);
+
+            List<Long> sorted = new ArrayList<>(testNanos);
+            sorted.sort(null);
+            long sum = 0;
+            for (long n : sorted) sum += n;
+            row.testSumMs = sum / 1_000_000;
+            row.testP50Ms = percentile(sorted, 0.50);
+            row.testP95Ms = percentile(sorted, 0.95);
+        }
+
+        private long millisSinceStart(long t) {
+            return t == 0 ? -1 : (t - start) / 1_000_000;
+        }
+
+        private static double percentile(List<Long> sorted, double p) {
+            if (sorted.isEmpty()) return -1;
+            return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1)) / 1e6;
+        }
+    }
+
+    // ------------ ROW --------------
+    private static final class Row {
+        final int students;
+        final int tests;
+        final String mode;
+        long wallMs;
+        int executions;
+        long discoveryMs;
+        long compileDoneMs;
+        long testsDoneMs;
+        long testSumMs;
+        double testP50Ms;
+        double testP95Ms;
+        long saveMs;
+        long peakTreeKb = -1;
+        long graderHwmKb = -1;
+        int compileErrors;
+        int passedAll;
+        int mismatches;
+
+        Row(int students, int tests, String mode) {
+            this.students = students;
+            this.tests = tests;
+            this.mode = mode;
+        }
+
+        double seconds() {
+            return Math.max(wallMs, 1) / 1000.0;
+        }
+
+        double testsPerSec() {
+            return executions / seconds();
+        }
+
+        double msPerStudent() {
+            return (double) wallMs / students;
+        }
+
+        String peakTreeMb() {
+            return peakTreeKb < 0 ? "n/a" : String.valueOf(peakTreeKb / 1024);
+        }
+
+        String csv() {
+            return String.join(",",
+                    String.valueOf(students), String.valueOf(tests), mode, String.valueOf(wallMs),
+                    String.valueOf(executions), fmt(testsPerSec()), fmt(students / seconds()), fmt(msPerStudent()),
+                    String.valueOf(discoveryMs), String.valueOf(compileDoneMs), String.valueOf(testsDoneMs),
+                    String.valueOf(testSumMs), fmt(testP50Ms), fmt(testP95Ms), String.valueOf(saveMs),
+                    String.valueOf(peakTreeKb < 0 ? -1 : peakTreeKb / 1024),
+                    String.valueOf(graderHwmKb < 0 ? -1 : graderHwmKb / 1024),
+                    String.valueOf(compileErrors), String.valueOf(passedAll), String.valueOf(mismatches));
+        }
+
+        private static String fmt(double v) {
+            return String.format(Locale.ROOT, "%.2f", v);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package bench;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** TestCase.parseFromFile and TestCase.compareOutput. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TestCaseBench {
+
+    static final String EXPECTED = "The sum of the first 100 integers is 5050";
+
+    private Path dir;
+    private File file;
+    private Object testCase;
+
+    @Setup
+    public void setup() throws Throwable {
+        testCase = Grader.newTestCase("Sum of integers", "100", EXPECTED);
+
+        dir = Fixtures.tempDir("testcase");
+        file = dir.resolve("testcase.txt").toFile();
+        Grader.saveTestCase(testCase, file.getPath());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Fixtures.deleteTree(dir);
+    }
+
+    // What the student printed, relative to the expected output
+    @State(Scope.Benchmark)
+    public static class Output {
+
+        @Param({"exact", "case-and-spaces", "wrong"})
+        public String actual;
+
+        String text;
+
+        @Setup
+        public void setup() {
+            switch (actual) {
+                case "exact":
+                    text = EXPECTED;
+                    break;
+                case "case-and-spaces":
+                    text = "  " + EXPECTED.toUpperCase() + "   ";
+                    break;
+                default:
+                    text = "The sum of the first 100 integers is 5051";
+            }
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object parseFromFile() throws Throwable {
+        return Grader.parseTestCase(file);
+    }
+
+    @Benchmark
+    public boolean compareOutput(Output output) throws Throwable {
+        return Grader.compareOutput(testCase, output.text);
+    }
+}
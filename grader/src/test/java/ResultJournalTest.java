@@ -0,0 +1,121 @@
+/***********************************************
+ * ResultJournalTest.java
+ * Replay of journals where a student is compiled
+ * more than once: a resumed or regraded run
+ * appends a new COMPILED record after the one
+ * copied from the carried-over result.
+ ***********************************************/
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResultJournalTest {
+
+    private static final String OLD_HASH = "a".repeat(64);
+    private static final String NEW_HASH = "b".repeat(64);
+
+    @TempDir
+    Path dir;
+
+    private final TestCase first = new TestCase("first", "1", "one");
+    private final TestCase second = new TestCase("second", "2", "two");
+
+    @Test
+    void failedThenFixedReplaysAsCompiled() throws Exception {
+        TestSuiteResult carried = carried(OLD_HASH, true, null, null);
+        Path file = dir.resolve("run.journal");
+
+        try (ResultJournal journal = ResultJournal.create(file, suite(), carried)) {
+            journal.studentCompiled("alice", NEW_HASH, null);
+            journal.testFinished(new Result("alice", "first", true, "one", "one"));
+            journal.testFinished(new Result("alice", "second", false, "two", "three"));
+        }
+
+        StudentResult alice = ResultJournal.replay(file).getStudentResult("alice");
+        assertFalse(alice.didCompileFail());
+        assertEquals(NEW_HASH, alice.getSubmissionHash());
+        assertEquals(Boolean.TRUE, alice.getOutcome("first"));
+        assertEquals(Boolean.FALSE, alice.getOutcome("second"));
+        assertEquals("1/2", alice.computeSuccessRate());
+    }
+
+    @Test
+    void fixedThenBrokenDropsOutcomes() throws Exception {
+        TestSuiteResult carried = carried(OLD_HASH, false, true, true);
+        Path file = dir.resolve("run.journal");
+
+        try (ResultJournal journal = ResultJournal.create(file, suite(), carried)) {
+            journal.studentCompiled("alice", NEW_HASH, "error: ';' expected");
+        }
+
+        StudentResult alice = ResultJournal.replay(file).getStudentResult("alice");
+        assertTrue(alice.didCompileFail());
+        assertEquals(NEW_HASH, alice.getSubmissionHash());
+        assertEquals(0, alice.getGradedCount());
+        assertEquals("NO_COMPILE", alice.computeSuccessRate());
+    }
+
+    @Test
+    void changedSubmissionDropsStaleOutcomes() throws Exception {
+        TestSuiteResult carried = carried(OLD_HASH, false, true, true);
+        Path file = dir.resolve("run.journal");
+
+        try (ResultJournal journal = ResultJournal.create(file, suite(), carried)) {
+            journal.studentCompiled("alice", NEW_HASH, null);
+            journal.testFinished(new Result("alice", "first", false, "one", "uno"));
+        }
+
+        StudentResult alice = ResultJournal.replay(file).getStudentResult("alice");
+        assertEquals(Boolean.FALSE, alice.getOutcome("first"));
+        assertNull(alice.getOutcome("second"));
+        assertEquals(1, alice.getGradedCount());
+    }
+
+    @Test
+    void unchangedSubmissionKeepsCarriedOutcomes() throws Exception {
+        TestSuiteResult carried = carried(OLD_HASH, false, true, null);
+        Path file = dir.resolve("run.journal");
+
+        try (ResultJournal journal = ResultJournal.create(file, suite(), carried)) {
+            journal.studentCompiled("alice", OLD_HASH, null);
+            journal.testFinished(Result.carriedOver("alice", "first", true, "one"));
+            journal.testFinished(new Result("alice", "second", true, "two", "two"));
+        }
+
+        StudentResult alice = ResultJournal.replay(file).getStudentResult("alice");
+        assertFalse(alice.didCompileFail());
+        assertEquals(Boolean.TRUE, alice.getOutcome("first"));
+        assertEquals(Boolean.TRUE, alice.getOutcome("second"));
+        assertEquals("2/2", alice.computeSuccessRate());
+    }
+
+    // ------------ FIXTURES --------------
+    private TestSuite suite() {
+        TestSuite suite = new TestSuite("suite");
+        suite.addTestCase(first);
+        suite.addTestCase(second);
+        return suite;
+    }
+
+    // alice as saved by an earlier run; null outcomes were not graded
+    private TestSuiteResult carried(String hash, boolean compileFailed, Boolean firstPassed, Boolean secondPassed) {
+        TestSuiteResult tsr = new TestSuiteResult("suite");
+        tsr.setTestFingerprint("first", first.getFingerprint());
+        tsr.setTestFingerprint("second", second.getFingerprint());
+
+        StudentResult alice = new StudentResult("alice");
+        alice.setSubmissionHash(hash);
+        if (compileFailed) alice.setCompileFailed();
+        if (firstPassed != null) alice.setOutcome("first", firstPassed);
+        if (secondPassed != null) alice.setOutcome("second", secondPassed);
+        tsr.addStudentResult(alice);
+        return tsr;
+    }
+}